@@ -0,0 +1,119 @@
+package benchmarks;
+
+import controller.ChessController;
+import functional_chess_model.CastlingType;
+import functional_chess_model.ChessColor;
+import functional_chess_model.Piece;
+import functional_chess_model.Play;
+import functional_chess_model.Position;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the methods of {@link functional_chess_model.Chess} and
+ * {@link ChessController} the GUI and the rules call the most, on the
+ * positions of {@link GamePositions}.
+ * <br><br>
+ * Each benchmark goes over every play, piece or square of the position it
+ * applies to, so their times are those of a whole position rather than of a
+ * single call, and can be compared between versions of the model.
+ * <br><br>
+ * Most of them run on a {@link FreshPosition}, so the data a position
+ * derives from its pieces is computed on each call rather than read back
+ * from the previous ones. Two of them don't: {@code findPieceAt}, which only
+ * reads the board, and {@code validMovesOfCached}, which reads the legal
+ * plays the position already derived, as hovering over the pieces of the
+ * GUI does after the first one. The time of {@code validMovesOfCached} next
+ * to the one of {@code validMovesOf} is what that cache saves.
+ * @author Alfonso Gallego
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChessBenchmarks {
+
+    /**
+     * Performs every legal play of the active player.
+     */
+    @Benchmark
+    public void tryToMove(GamePositions state, FreshPosition fresh, Blackhole blackhole) {
+        for (Play play : state.plays) blackhole.consume(fresh.game.tryToMove(play.initPos(), play.finPos()));
+    }
+
+    /**
+     * Updates the state of the game after the last play, looking for a
+     * checkmate or stalemate of the active player.
+     */
+    @Benchmark
+    public Object checkMate(FreshPosition fresh) {
+        return fresh.game.checkMate(fresh.game.activePlayer());
+    }
+
+    /**
+     * Checks whether each player is in check.
+     */
+    @Benchmark
+    public void isPlayerInCheck(FreshPosition fresh, Blackhole blackhole) {
+        for (ChessColor color : ChessColor.values()) blackhole.consume(fresh.game.isPlayerInCheck(color));
+    }
+
+    /**
+     * Checks whether the king of the active player can castle each way.
+     */
+    @Benchmark
+    public void castlingTypeOfPlay(GamePositions state, FreshPosition fresh, Blackhole blackhole) {
+        ChessColor color = fresh.game.activePlayer();
+        Position kingPos = state.variant.initKingPos(color);
+        for (CastlingType type : CastlingType.values()) {
+            blackhole.consume(fresh.game.castlingTypeOfPlay(kingPos, state.variant.castlingKingPos(type, color)));
+        }
+    }
+
+    /**
+     * Looks for the piece on every square of the board.
+     */
+    @Benchmark
+    public void findPieceAt(GamePositions state, Blackhole blackhole) {
+        for (Position pos : state.squares) blackhole.consume(state.game.findPieceAt(pos));
+    }
+
+    /**
+     * Checks the path from each piece of the active player to every square.
+     */
+    @Benchmark
+    public void isPathClear(GamePositions state, FreshPosition fresh, Blackhole blackhole) {
+        for (Piece piece : state.activePieces) {
+            for (Position pos : state.squares) blackhole.consume(fresh.game.isPathClear(piece.getPosition(), pos));
+        }
+    }
+
+    /**
+     * Lists the valid movements of each piece of the active player, as the
+     * GUI does when one is selected.
+     */
+    @Benchmark
+    public void validMovesOf(GamePositions state, FreshPosition fresh, Blackhole blackhole) {
+        for (Piece piece : state.activePieces) blackhole.consume(ChessController.validMovesOf(fresh.game, piece));
+    }
+
+    /**
+     * Lists the valid movements of each piece of the active player on a
+     * position whose legal plays were already listed, as the GUI does when
+     * hovering over the pieces after the first one.
+     */
+    @Benchmark
+    public void validMovesOfCached(GamePositions state, Blackhole blackhole) {
+        for (Piece piece : state.activePieces) blackhole.consume(ChessController.validMovesOf(state.game, piece));
+    }
+
+}
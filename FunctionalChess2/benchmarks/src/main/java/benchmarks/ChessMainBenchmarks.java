@@ -0,0 +1,29 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Main class to run the benchmarks with the GC profiler, which reports the
+ * bytes allocated per operation along with the times.
+ * <br><br>
+ * It takes the same arguments as the JMH command line, so
+ * {@code ChessMainBenchmarks ChessBenchmarks.tryToMove -p variant=STANDARD}
+ * runs a single benchmark for a single variant.
+ * @author Alfonso Gallego
+ */
+public class ChessMainBenchmarks {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder()
+            .parent(new CommandLineOptions(args))
+            .addProfiler(GCProfiler.class)
+            .build()
+        ).run();
+    }
+
+}
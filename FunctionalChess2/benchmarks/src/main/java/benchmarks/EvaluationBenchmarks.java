@@ -0,0 +1,159 @@
+package benchmarks;
+
+import chess_engine.Evaluation;
+import chess_engine.IncrementalEvaluation;
+import functional_chess_model.GameVariant;
+import functional_chess_model.SearchBoard;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the ways of scoring the positions the engine searches, each
+ * one making every legal movement of a position of {@link GamePositions},
+ * scoring the position reached and taking the movement back:
+ * <ul>
+ *     <li>{@code makeAndUnmake}: without scoring, the baseline the others
+ *     add to.</li>
+ *     <li>{@code fullEvaluation}: {@link Evaluation#evaluate(SearchBoard)},
+ *     adding up every piece on the board.</li>
+ *     <li>{@code incrementalEvaluation}: the {@link IncrementalEvaluation}
+ *     the engine uses, updated on each movement.</li>
+ *     <li>{@code incrementalFeatures}: the accumulator of a
+ *     {@link FeatureVector}, updated on each movement.</li>
+ *     <li>{@code scalarFeatures} and {@code vectorFeatures}: a
+ *     {@link FeatureVector} scored again from its features on each movement,
+ *     with a scalar loop or with the Vector API.</li>
+ * </ul>
+ * {@code scalarRefresh} and {@code vectorRefresh} time those two kernels
+ * alone, scoring the position once without making any movement.
+ * The forked JVMs add the {@code jdk.incubator.vector} module.
+ * @author Alfonso Gallego
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class EvaluationBenchmarks {
+
+    /**
+     * JMH state holding a position of {@link GamePositions} on a
+     * {@link SearchBoard} for each way of scoring it, along with its legal
+     * movements.
+     */
+    @State(Scope.Thread)
+    public static class BoardsInPosition {
+
+        @Param({"STANDARD", "ALMOSTCHESS", "CAPABLANCA", "GOTHIC", "JANUS", "MODERN", "TUTTIFRUTTI"})
+        public GameVariant variant;
+
+        @Param({"OPENING", "MIDDLEGAME", "ENDGAME"})
+        public GamePositions.Phase phase;
+
+        public SearchBoard board;
+        public SearchBoard incrementalBoard;
+        public IncrementalEvaluation evaluation;
+        public SearchBoard featureBoard;
+        public FeatureVector features;
+        public int[] moves;
+        public int count;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            board = SearchBoard.of(GamePositions.position(variant, phase));
+            incrementalBoard = SearchBoard.of(GamePositions.position(variant, phase));
+            evaluation = new IncrementalEvaluation();
+            evaluation.attach(incrementalBoard);
+            featureBoard = SearchBoard.of(GamePositions.position(variant, phase));
+            features = new FeatureVector(featureBoard);
+            moves = new int[SearchBoard.MAX_MOVES];
+            count = board.legalMoves(moves);
+        }
+    }
+
+    @Benchmark
+    public void makeAndUnmake(BoardsInPosition state, Blackhole blackhole) {
+        SearchBoard board = state.board;
+        for (int i = 0; i < state.count; i++) {
+            board.makeMove(state.moves[i]);
+            blackhole.consume(board.activePlayer());
+            board.unmakeMove();
+        }
+    }
+
+    @Benchmark
+    public void fullEvaluation(BoardsInPosition state, Blackhole blackhole) {
+        SearchBoard board = state.board;
+        for (int i = 0; i < state.count; i++) {
+            board.makeMove(state.moves[i]);
+            blackhole.consume(Evaluation.evaluate(board));
+            board.unmakeMove();
+        }
+    }
+
+    @Benchmark
+    public void incrementalEvaluation(BoardsInPosition state, Blackhole blackhole) {
+        SearchBoard board = state.incrementalBoard;
+        for (int i = 0; i < state.count; i++) {
+            board.makeMove(state.moves[i]);
+            blackhole.consume(state.evaluation.evaluate(board.activePlayer()));
+            board.unmakeMove();
+        }
+    }
+
+    @Benchmark
+    public void incrementalFeatures(BoardsInPosition state, Blackhole blackhole) {
+        SearchBoard board = state.featureBoard;
+        for (int i = 0; i < state.count; i++) {
+            board.makeMove(state.moves[i]);
+            blackhole.consume(state.features.incrementalScore(board.activePlayer()));
+            board.unmakeMove();
+        }
+    }
+
+    @Benchmark
+    public void scalarFeatures(BoardsInPosition state, Blackhole blackhole) {
+        SearchBoard board = state.featureBoard;
+        for (int i = 0; i < state.count; i++) {
+            board.makeMove(state.moves[i]);
+            blackhole.consume(state.features.scalarScore(board.activePlayer()));
+            board.unmakeMove();
+        }
+    }
+
+    @Benchmark
+    public void vectorFeatures(BoardsInPosition state, Blackhole blackhole) {
+        SearchBoard board = state.featureBoard;
+        for (int i = 0; i < state.count; i++) {
+            board.makeMove(state.moves[i]);
+            blackhole.consume(state.features.vectorScore(board.activePlayer()));
+            board.unmakeMove();
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int scalarRefresh(BoardsInPosition state) {
+        return state.features.scalarScore(state.featureBoard.activePlayer());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int vectorRefresh(BoardsInPosition state) {
+        return state.features.vectorScore(state.featureBoard.activePlayer());
+    }
+
+}
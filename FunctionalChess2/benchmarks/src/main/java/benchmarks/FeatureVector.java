@@ -0,0 +1,133 @@
+package benchmarks;
+
+import chess_engine.Evaluation;
+import chess_engine.IncrementalEvaluation;
+import chess_engine.PieceSquareTables;
+import functional_chess_model.BoardListener;
+import functional_chess_model.ChessColor;
+import functional_chess_model.PieceType;
+import functional_chess_model.SearchBoard;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.Arrays;
+
+/**
+ * The linear model of {@link PieceSquareTables} over the features of a
+ * {@link SearchBoard}: the piece on each square, kept up to date on each
+ * movement along with an accumulator of the sum of their weights.
+ * <br><br>
+ * The accumulator adds the weight of each feature added and subtracts the
+ * weight of each feature removed, as {@link IncrementalEvaluation} does with
+ * its score, so {@link FeatureVector#incrementalScore(ChessColor)} compares
+ * with it like for like. The whole sum can also be computed again from the
+ * features, as a dot product with their weights, with a scalar loop or with
+ * the Vector API ({@code jdk.incubator.vector}), which gathers the weights
+ * of as many squares at once as the preferred vectors of the processor
+ * hold. That is the refresh an accumulator needs when it starts following a
+ * board.
+ * <br><br>
+ * The three scores are the same as
+ * {@link Evaluation#evaluate(SearchBoard)}. The incubator module has to be
+ * added to both the compiler and the JVM with
+ * {@code --add-modules jdk.incubator.vector}, which is why this kernel lives
+ * in the benchmarks and not in the engine.
+ * @author Alfonso Gallego
+ */
+public final class FeatureVector implements BoardListener {
+
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    private final PieceSquareTables tables;
+    /**
+     * Weight of each feature, positive for the white pieces and negative for
+     * the black ones, plus a last one of 0 for the empty squares.
+     */
+    private final int[] weights;
+    private final int empty;
+    /**
+     * Feature of the piece on each square, or {@link #empty} if there's none.
+     */
+    private final int[] features;
+    /**
+     * Sum of the weights of the features on the board.
+     */
+    private int accumulator;
+
+    /**
+     * Creates the feature vector of a board, which follows it from now on.
+     * @param board {@link SearchBoard} to follow. Its listener is replaced
+     * by this vector.
+     */
+    public FeatureVector(SearchBoard board) {
+        this.tables = PieceSquareTables.of(board.variant());
+        this.empty = tables.features();
+        this.weights = new int[empty + 1];
+        for (ChessColor color : ChessColor.values()) {
+            for (PieceType type : PieceType.values()) {
+                for (int square = 0; square < board.squares(); square++) {
+                    int score = tables.score(color, type, square);
+                    weights[tables.feature(color, type, square)] = color == ChessColor.WHITE ? score : -score;
+                }
+            }
+        }
+        this.features = new int[board.squares()];
+        Arrays.fill(features, empty);
+        board.setListener(this);
+    }
+
+    @Override
+    public void pieceAdded(ChessColor color, PieceType type, int square) {
+        int feature = tables.feature(color, type, square);
+        features[square] = feature;
+        accumulator += weights[feature];
+    }
+
+    @Override
+    public void pieceRemoved(ChessColor color, PieceType type, int square) {
+        accumulator -= weights[features[square]];
+        features[square] = empty;
+    }
+
+    /**
+     * Scores the board with the accumulator.
+     * @param player {@link ChessColor} to score the position for.
+     * @return The same score as {@link Evaluation#evaluate(SearchBoard)}
+     * when {@code player} is to move.
+     */
+    public int incrementalScore(ChessColor player) {
+        return player == ChessColor.WHITE ? accumulator : -accumulator;
+    }
+
+    /**
+     * Scores the board from its features with a scalar loop.
+     * @param player {@link ChessColor} to score the position for.
+     * @return The same score as {@link Evaluation#evaluate(SearchBoard)}
+     * when {@code player} is to move.
+     */
+    public int scalarScore(ChessColor player) {
+        int score = 0;
+        for (int feature : features) score += weights[feature];
+        return player == ChessColor.WHITE ? score : -score;
+    }
+
+    /**
+     * Scores the board from its features with the Vector API, the squares left over by the last
+     * full vector being added with a scalar loop.
+     * @param player {@link ChessColor} to score the position for.
+     * @return The same score as {@link Evaluation#evaluate(SearchBoard)}
+     * when {@code player} is to move.
+     */
+    public int vectorScore(ChessColor player) {
+        IntVector sum = IntVector.zero(SPECIES);
+        int square = 0;
+        for (int bound = SPECIES.loopBound(features.length); square < bound; square += SPECIES.length()) {
+            sum = sum.add(IntVector.fromArray(SPECIES, weights, 0, features, square));
+        }
+        int score = sum.reduceLanes(VectorOperators.ADD);
+        for (; square < features.length; square++) score += weights[features[square]];
+        return player == ChessColor.WHITE ? score : -score;
+    }
+
+}
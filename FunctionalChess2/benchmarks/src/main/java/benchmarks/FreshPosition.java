@@ -0,0 +1,32 @@
+package benchmarks;
+
+import functional_chess_model.Chess;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * JMH state holding a copy of the position of {@link GamePositions}, made
+ * again before each call of a benchmark.
+ * <br><br>
+ * A {@link Chess} state keeps the data it derives from its pieces, like the
+ * safety of its kings or its legal plays, and reuses it on later calls. The
+ * copy shares none of it, so each call pays for that data the first time,
+ * as the GUI does after every play, instead of only reading it back.
+ * @author Alfonso Gallego
+ */
+@State(Scope.Thread)
+public class FreshPosition {
+
+    /**
+     * Copy of the position benchmarked, without any derived data.
+     */
+    public Chess game;
+
+    @Setup(Level.Invocation)
+    public void setUp(GamePositions position) {
+        game = GamePositions.copyOf(position.game);
+    }
+
+}
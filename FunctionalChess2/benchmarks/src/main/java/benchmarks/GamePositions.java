@@ -0,0 +1,142 @@
+package benchmarks;
+
+import functional_chess_model.Chess;
+import functional_chess_model.ChessColor;
+import functional_chess_model.GameState;
+import functional_chess_model.GameVariant;
+import functional_chess_model.Piece;
+import functional_chess_model.Play;
+import functional_chess_model.Position;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * JMH state holding a representative position of a {@link GameVariant} at
+ * some phase of the game, along with the data the benchmarks iterate over.
+ * <br><br>
+ * The positions are built the same way on every run:
+ * <ul>
+ *     <li>OPENING: the initial position of the variant.</li>
+ *     <li>MIDDLEGAME: the position after 24 legal plays chosen at random
+ *     with a fixed seed from the initial position.</li>
+ *     <li>ENDGAME: only the kings, the piece that starts on the second
+ *     column of each player and the pawns of the last three columns, without
+ *     castling.</li>
+ * </ul>
+ * @author Alfonso Gallego
+ */
+@State(Scope.Benchmark)
+public class GamePositions {
+
+    public enum Phase {OPENING, MIDDLEGAME, ENDGAME}
+
+    private static final int MIDDLEGAME_PLIES = 24;
+
+    @Param({"STANDARD", "ALMOSTCHESS", "CAPABLANCA", "GOTHIC", "JANUS", "MODERN", "TUTTIFRUTTI"})
+    public GameVariant variant;
+
+    @Param({"OPENING", "MIDDLEGAME", "ENDGAME"})
+    public Phase phase;
+
+    /**
+     * Position benchmarked.
+     */
+    public Chess game;
+    /**
+     * Legal plays of the active player.
+     */
+    public List<Play> plays;
+    /**
+     * Pieces of the active player.
+     */
+    public List<Piece> activePieces;
+    /**
+     * Every square of the board.
+     */
+    public List<Position> squares;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        game = position(variant, phase);
+        plays = game.legalMoves();
+        activePieces = game.pieces().stream().filter(piece -> piece.getColor() == game.activePlayer()).toList();
+        squares = new ArrayList<>(variant.rows() * variant.cols());
+        for (int y = 1; y <= variant.rows(); y++) {
+            for (int x = 1; x <= variant.cols(); x++) squares.add(Position.of(x, y));
+        }
+    }
+
+    /**
+     * Builds the position of a variant at a phase of the game.
+     * @param variant {@link GameVariant} of the game.
+     * @param phase {@link Phase} of the game.
+     * @return The same position on every call with the same arguments.
+     */
+    public static Chess position(GameVariant variant, Phase phase) {
+        return switch (phase) {
+            case OPENING -> variant.initGame(false);
+            case MIDDLEGAME -> middlegame(variant);
+            case ENDGAME -> endgame(variant);
+        };
+    }
+
+    /**
+     * Copies a position without the data it derived from its pieces.
+     * @param game {@link Chess} position to copy.
+     * @return An equal position whose derived data is computed again on its
+     * first use.
+     */
+    public static Chess copyOf(Chess game) {
+        return new Chess(
+            List.copyOf(game.pieces()),
+            game.castling(),
+            game.playHistory(),
+            game.activePlayer(),
+            game.variant(),
+            game.state(),
+            game.isTimed(),
+            game.whiteSeconds(),
+            game.blackSeconds()
+        );
+    }
+
+    private static Chess middlegame(GameVariant variant) {
+        Random random = new Random(variant.ordinal());
+        Chess game = variant.initGame(false);
+        for (int ply = 0; ply < MIDDLEGAME_PLIES; ply++) {
+            List<Play> plays = game.legalMoves();
+            if (plays.isEmpty()) break;
+            game = game.tryToPlay(plays.get(random.nextInt(plays.size()))).orElseThrow();
+        }
+        return game;
+    }
+
+    private static Chess endgame(GameVariant variant) {
+        List<Piece> pieces = new ArrayList<>();
+        for (Piece piece : variant.initPieces()) {
+            Position pos = piece.getPosition();
+            boolean isPawn = pos.y() == variant.initRowPawn(piece.getColor());
+            if (piece.isRoyal() || (!isPawn && pos.x() == 2) || (isPawn && pos.x() > variant.cols() - 3)) pieces.add(piece);
+        }
+        return new Chess(
+            pieces,
+            Map.of(),
+            List.of(),
+            ChessColor.WHITE,
+            variant,
+            GameState.IN_PROGRESS,
+            false,
+            -1,
+            -1
+        );
+    }
+
+}
@@ -0,0 +1,109 @@
+package benchmarks;
+
+import functional_chess_model.Chess;
+import functional_chess_model.GameVariant;
+import functional_chess_model.Piece;
+import functional_chess_model.PieceType;
+import functional_chess_model.Position;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of {@link Piece#isLegalMovement(Chess, Position)} for each
+ * {@link PieceType}, checking the movement of one piece of that type to every
+ * square of the board.
+ * @author Alfonso Gallego
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PieceBenchmarks {
+
+    /**
+     * JMH state holding a piece of the benchmarked type in a position of
+     * {@link GamePositions}. If the active player has no piece of that type,
+     * its first non-royal piece is replaced with one. The game is copied
+     * again before each call, as in {@link FreshPosition}, so the safety of
+     * the kings is computed on each call.
+     */
+    @State(Scope.Benchmark)
+    public static class PieceInPosition {
+
+        @Param({"AMAZON", "ARCHBISHOP", "BISHOP", "CHANCELLOR", "KING", "KNIGHT", "NIGHTRIDER", "PAWN", "QUEEN", "ROOK"})
+        public PieceType type;
+
+        @Param({"STANDARD", "ALMOSTCHESS", "CAPABLANCA", "GOTHIC", "JANUS", "MODERN", "TUTTIFRUTTI"})
+        public GameVariant variant;
+
+        @Param({"OPENING", "MIDDLEGAME", "ENDGAME"})
+        public GamePositions.Phase phase;
+
+        public Chess game;
+        public Piece piece;
+        private Chess original;
+        public List<Position> squares;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            Chess position = GamePositions.position(variant, phase);
+            List<Piece> pieces = new ArrayList<>(position.pieces());
+            Piece found = null;
+            for (int i = 0; i < pieces.size() && found == null; i++) {
+                Piece candidate = pieces.get(i);
+                if (candidate.getColor() != position.activePlayer()) continue;
+                if (PieceType.of(candidate) == type) {
+                    found = candidate;
+                } else if (type != PieceType.KING && !candidate.isRoyal()) {
+                    found = type.constructor(candidate.getPosition(), candidate.getColor());
+                    pieces.set(i, found);
+                }
+            }
+            piece = found;
+            original = new Chess(pieces, position.castling(), position.playHistory(), position.activePlayer(), variant, position.state(), false, -1, -1);
+            squares = new ArrayList<>(variant.rows() * variant.cols());
+            for (int y = 1; y <= variant.rows(); y++) {
+                for (int x = 1; x <= variant.cols(); x++) squares.add(Position.of(x, y));
+            }
+        }
+
+        @Setup(Level.Invocation)
+        public void copy() {
+            game = GamePositions.copyOf(original);
+        }
+    }
+
+    /**
+     * Checks the movement of the piece to every square, with the check test.
+     */
+    @Benchmark
+    public void isLegalMovement(PieceInPosition state, Blackhole blackhole) {
+        for (Position pos : state.squares) blackhole.consume(state.piece.isLegalMovement(state.game, pos));
+    }
+
+    /**
+     * Checks the movement of the piece to every square, without the check
+     * test, as the rules do when looking for threats.
+     */
+    @Benchmark
+    public void isLegalMovementIgnoringChecks(PieceInPosition state, Blackhole blackhole) {
+        for (Position pos : state.squares) blackhole.consume(state.piece.isLegalMovement(state.game, pos, false));
+    }
+
+}
@@ -0,0 +1,414 @@
+package chess_engine;
+
+import functional_chess_model.Chess;
+import functional_chess_model.GameVariant;
+import functional_chess_model.Play;
+import functional_chess_model.SearchBoard;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Searches the best play of a game with a negamax alpha-beta search,
+ * deepened one ply at a time until the {@link SearchLimits} are reached.
+ * <br><br>
+ * The search runs on a {@link SearchBoard} built from the game, so it
+ * follows the same rules as {@link Chess}, including castling, en passant
+ * captures, crowning and the fairy pieces of every {@link GameVariant}.
+ * Positions are scored by {@link Evaluation}, kept up to date on each
+ * movement by an {@link IncrementalEvaluation}, and a player without legal
+ * plays is checkmated if it's in check and drawn otherwise. The results of
+ * the positions searched are stored in a {@link TranspositionTable}, so a
+ * position reached again, through another order of the same plays or on a
+ * later iteration, is searched only if the stored result isn't deep enough,
+ * and then its best movement is tried first. Each iteration also tries the
+ * principal variation of the previous one first, and the rest of the
+ * movements are tried in the order of {@link MoveOrdering}.
+ * <br><br>
+ * An Engine keeps its buffers between searches, so it isn't thread-safe,
+ * except for {@link Engine#stop()}, which can be called from any thread to
+ * end the running search. Its table, however, can be shared with other
+ * engines searching at the same time.
+ * @author Alfonso Gallego
+ */
+public final class Engine {
+
+    /**
+     * Maximum depth of a search, in plies.
+     */
+    public static final int MAX_PLY = 64;
+    /**
+     * Score of checkmating on the current ply. Checkmating {@code n} plies
+     * later scores {@code MATE_SCORE - n}.
+     */
+    public static final int MATE_SCORE = 100_000;
+    private static final int INFINITY = MATE_SCORE + 1;
+    /**
+     * Mask of the node counts on which the time and the stop requests are
+     * checked.
+     */
+    private static final int CHECK_INTERVAL = 1023;
+    /**
+     * Size of the table of an engine created without one, in megabytes.
+     */
+    public static final int DEFAULT_TABLE_MEGABYTES = 16;
+
+    private final TranspositionTable table;
+    private final MoveOrdering ordering = new MoveOrdering();
+    private final IncrementalEvaluation evaluation = new IncrementalEvaluation();
+
+    /**
+     * Buffer of movements of each ply.
+     */
+    private final int[][] moves = new int[MAX_PLY + 1][SearchBoard.MAX_MOVES];
+    /**
+     * Principal variation found from each ply, as a triangular table.
+     */
+    private final int[][] pv = new int[MAX_PLY + 1][MAX_PLY + 1];
+    private final int[] pvLength = new int[MAX_PLY + 1];
+    private volatile boolean stopRequested;
+
+    private SearchBoard board;
+    private long nodes;
+    private long nodeLimit;
+    private long deadline;
+    /**
+     * Whether the limits can stop the search, false during the first
+     * iteration.
+     */
+    private boolean canStop;
+    private boolean stopped;
+    /**
+     * Principal variation of the last completed iteration, and whether the
+     * current node is still on it.
+     */
+    private int[] previousPv = new int[0];
+    private boolean followPv;
+
+    /**
+     * Creates an engine with a table of {@value #DEFAULT_TABLE_MEGABYTES} MB.
+     */
+    public Engine() {
+        this(new TranspositionTable(DEFAULT_TABLE_MEGABYTES));
+    }
+
+    /**
+     * Creates an engine storing its results in the given table.
+     * @param table {@link TranspositionTable} of the engine, which may be
+     * shared with other engines.
+     */
+    public Engine(TranspositionTable table) {
+        this.table = table;
+    }
+
+    public TranspositionTable table() {return table;}
+
+    /**
+     * Searches the best play of a game.
+     * @param game {@link Chess} game to search.
+     * @param limits {@link SearchLimits} of the search.
+     * @return The {@link SearchResult} of the last completed iteration.
+     */
+    public SearchResult search(Chess game, SearchLimits limits) {
+        return search(game, limits, result -> {});
+    }
+
+    /**
+     * Searches the best play of a game, reporting each completed iteration.
+     * @param game {@link Chess} game to search.
+     * @param limits {@link SearchLimits} of the search.
+     * @param onIteration Consumer of the {@link SearchResult} of each
+     * completed iteration, called from the searching thread.
+     * @return The {@link SearchResult} of the last completed iteration, or
+     * one of depth 0 with an empty principal variation if the game has no
+     * legal play.
+     */
+    public SearchResult search(Chess game, SearchLimits limits, Consumer<SearchResult> onIteration) {
+        table.newSearch();
+        stopRequested = false;
+        return deepen(game, limits, onIteration, 1);
+    }
+
+    /**
+     * Searches a game as a helper of a {@link ParallelSearch}, without limits
+     * until {@link Engine#stop()} is called, and without aging the table,
+     * which the main search already did. Helpers start on a depth that
+     * depends on their index, so that not all of them search the same depth
+     * at the same time.
+     * @param game {@link Chess} game to search.
+     * @param index Index of the helper, from 1.
+     */
+    SearchResult searchAsHelper(Chess game, int index) {
+        return deepen(game, SearchLimits.NONE, result -> {}, 1 + index % 2);
+    }
+
+    /**
+     * Prepares a search that doesn't clear the stop requests when it starts,
+     * like {@link Engine#searchAsHelper(Chess, int)}, so that a request made
+     * after this call and before it started isn't lost.
+     */
+    void prepareHelperSearch() {
+        stopRequested = false;
+        nodes = 0;
+    }
+
+    /**
+     * Gets the number of nodes visited by the running or last search. It's
+     * only accurate when read from the searching thread or after it ends.
+     */
+    long nodes() {return nodes;}
+
+    /**
+     * Deepens the search one ply at a time from the given depth.
+     */
+    private SearchResult deepen(Chess game, SearchLimits limits, Consumer<SearchResult> onIteration, int firstDepth) {
+        long start = System.nanoTime();
+        board = SearchBoard.of(game);
+        evaluation.attach(board);
+        nodes = 0;
+        nodeLimit = limits.nodes();
+        deadline = limits.millis() >= Long.MAX_VALUE / 1_000_000 ? Long.MAX_VALUE : start + limits.millis() * 1_000_000;
+        canStop = false;
+        stopped = false;
+        previousPv = new int[0];
+        ordering.newSearch();
+
+        if (board.legalMoves(moves[0]) == 0) {
+            int score = board.isInCheck(board.activePlayer()) ? -MATE_SCORE : 0;
+            return new SearchResult(score, 0, 0, System.nanoTime() - start, List.of());
+        }
+
+        SearchResult result = null;
+        for (int depth = Math.min(firstDepth, limits.depth()); depth <= limits.depth(); depth++) {
+            followPv = true;
+            int score = negamax(depth, 0, -INFINITY, INFINITY);
+            if (stopped) break;
+            previousPv = principalVariation(depth);
+            result = new SearchResult(score, depth, nodes, System.nanoTime() - start, plays(previousPv));
+            onIteration.accept(result);
+            canStop = true;
+            // A deeper search can't find a faster checkmate than one found within this depth.
+            if (Math.abs(score) >= MATE_SCORE - depth) break;
+            if (nodes >= nodeLimit || System.nanoTime() >= deadline || stopRequested) break;
+        }
+        return result;
+    }
+
+    /**
+     * Asks the running search to stop. It returns the result of its last
+     * completed iteration once the first one is completed.
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    /**
+     * Negamax alpha-beta search.
+     * @param depth Plies left to search.
+     * @param ply Plies from the root.
+     * @param alpha Lower bound of the scores that matter.
+     * @param beta Upper bound of the scores that matter.
+     * @return The score of the position for the player to move, bounded by
+     * {@code alpha} and {@code beta}, or 0 if the search was stopped.
+     */
+    private int negamax(int depth, int ply, int alpha, int beta) {
+        if (depth == 0) return quiescence(ply, alpha, beta);
+        pvLength[ply] = ply;
+        if (visit()) return 0;
+        if (ply == MAX_PLY) return evaluation.evaluate(board.activePlayer());
+
+        long key = board.zobristKey();
+        TranspositionTable.Entry entry = table.probe(key);
+        int hashMove = 0;
+        if (entry != null) {
+            hashMove = entry.move();
+            // The root always searches its movements so that it has a principal variation.
+            if (ply > 0 && entry.depth() >= depth) {
+                int score = fromTable(entry.score(), ply);
+                switch (entry.bound()) {
+                    case EXACT -> {return Math.clamp(score, alpha, beta);}
+                    case LOWER -> {if (score >= beta) return beta;}
+                    case UPPER -> {if (score <= alpha) return alpha;}
+                }
+            }
+        }
+
+        int[] plyMoves = moves[ply];
+        int count = board.legalMoves(plyMoves);
+        if (count == 0) return board.isInCheck(board.activePlayer()) ? -MATE_SCORE + ply : 0;
+        ordering.score(board, plyMoves, count, ply, isOnPv(plyMoves, count, ply) ? previousPv[ply] : hashMove);
+
+        int alphaBefore = alpha;
+        int bestMove = 0;
+        for (int i = 0; i < count; i++) {
+            int move = ordering.next(plyMoves, i, count, ply);
+            board.makeMove(move);
+            int score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+            board.unmakeMove();
+            followPv = false;
+            if (stopped) return 0;
+            if (score > alpha) {
+                alpha = score;
+                bestMove = move;
+                updatePv(ply, move);
+                if (alpha >= beta) {
+                    ordering.cutoff(board, move, ply, depth);
+                    break;
+                }
+            }
+        }
+        TranspositionTable.Bound bound = alpha >= beta ? TranspositionTable.Bound.LOWER
+            : alpha > alphaBefore ? TranspositionTable.Bound.EXACT
+            : TranspositionTable.Bound.UPPER;
+        table.store(key, bestMove, toTable(alpha, ply), depth, bound);
+        return alpha;
+    }
+
+    /**
+     * Searches the captures and crownings of a position left by
+     * {@link Engine#negamax(int, int, int, int)}, so that it's scored once
+     * the exchanges going on are resolved. The player to move can stand pat
+     * with the score of the position instead of capturing, captures that
+     * lose material by {@link SearchBoard#staticExchange} are skipped, and a
+     * player in check searches all its movements.
+     * @param ply Plies from the root.
+     * @param alpha Lower bound of the scores that matter.
+     * @param beta Upper bound of the scores that matter.
+     * @return The score of the position for the player to move, bounded by
+     * {@code alpha} and {@code beta}, or 0 if the search was stopped.
+     */
+    private int quiescence(int ply, int alpha, int beta) {
+        pvLength[ply] = ply;
+        if (visit()) return 0;
+        if (ply == MAX_PLY) return evaluation.evaluate(board.activePlayer());
+
+        int[] plyMoves = moves[ply];
+        int count = board.legalMoves(plyMoves);
+        boolean inCheck = board.isInCheck(board.activePlayer());
+        if (count == 0) return inCheck ? -MATE_SCORE + ply : 0;
+        if (!inCheck) {
+            int standPat = evaluation.evaluate(board.activePlayer());
+            if (standPat >= beta) return beta;
+            if (standPat > alpha) alpha = standPat;
+        }
+        ordering.score(board, plyMoves, count, ply, 0);
+
+        for (int i = 0; i < count; i++) {
+            int move = ordering.next(plyMoves, i, count, ply);
+            if (!inCheck) {
+                // Captures and crownings come first, so the rest are quiet.
+                if (MoveOrdering.isQuiet(board, move)) break;
+                if (board.staticExchange(move, Evaluation::value) < 0) continue;
+            }
+            board.makeMove(move);
+            int score = -quiescence(ply + 1, -beta, -alpha);
+            board.unmakeMove();
+            if (stopped) return 0;
+            if (score > alpha) {
+                alpha = score;
+                updatePv(ply, move);
+                if (alpha >= beta) break;
+            }
+        }
+        return alpha;
+    }
+
+    /**
+     * Counts a node and checks whether the search has to stop.
+     * @return True if the search was stopped.
+     */
+    private boolean visit() {
+        nodes++;
+        if (canStop && (nodes >= nodeLimit || ((nodes & CHECK_INTERVAL) == 0 && (stopRequested || System.nanoTime() >= deadline)))) stopped = true;
+        return stopped;
+    }
+
+    /**
+     * Converts a score to store it in the table. Mate scores are stored as
+     * the plies to the checkmate from the position, instead of from the root,
+     * so they are still right when the position is reached on another ply.
+     */
+    private static int toTable(int score, int ply) {
+        if (score > MATE_SCORE - MAX_PLY - 1) return score + ply;
+        if (score < -MATE_SCORE + MAX_PLY + 1) return score - ply;
+        return score;
+    }
+
+    /**
+     * Converts a score read from the table back to one relative to the root.
+     */
+    private static int fromTable(int score, int ply) {
+        if (score > MATE_SCORE - MAX_PLY - 1) return score - ply;
+        if (score < -MATE_SCORE + MAX_PLY + 1) return score + ply;
+        return score;
+    }
+
+    /**
+     * Checks whether the current node is still on the previous principal
+     * variation, so that its movement on this ply is tried first.
+     */
+    private boolean isOnPv(int[] plyMoves, int count, int ply) {
+        if (!followPv) return false;
+        followPv = false;
+        if (ply >= previousPv.length) return false;
+        for (int i = 0; i < count; i++) {
+            if (plyMoves[i] == previousPv[ply]) {
+                followPv = true;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void updatePv(int ply, int move) {
+        pv[ply][ply] = move;
+        System.arraycopy(pv[ply + 1], ply + 1, pv[ply], ply + 1, pvLength[ply + 1] - ply - 1);
+        pvLength[ply] = Math.max(pvLength[ply + 1], ply + 1);
+    }
+
+    /**
+     * Gets the principal variation of the last iteration. The variation of a
+     * node cut short by the table ends on it, so it's completed with the best
+     * movements stored in the table, up to the depth of the iteration. It
+     * may also be longer than the depth, with the captures of the
+     * quiescence search.
+     */
+    private int[] principalVariation(int depth) {
+        int length = pvLength[0];
+        int[] variation = Arrays.copyOf(pv[0], Math.max(length, depth));
+        for (int i = 0; i < length; i++) board.makeMove(variation[i]);
+        while (length < depth) {
+            TranspositionTable.Entry entry = table.probe(board.zobristKey());
+            if (entry == null || !isLegal(entry.move())) break;
+            variation[length++] = entry.move();
+            board.makeMove(entry.move());
+        }
+        for (int i = 0; i < length; i++) board.unmakeMove();
+        return Arrays.copyOf(variation, length);
+    }
+
+    private boolean isLegal(int move) {
+        int[] legalMoves = moves[MAX_PLY];
+        int count = board.legalMoves(legalMoves);
+        for (int i = 0; i < count; i++) {
+            if (legalMoves[i] == move) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Converts a principal variation into the plays it performs from the root.
+     */
+    private List<Play> plays(int[] variation) {
+        List<Play> plays = new ArrayList<>(variation.length);
+        for (int move : variation) {
+            plays.add(board.toPlay(move));
+            board.makeMove(move);
+        }
+        for (int i = 0; i < variation.length; i++) board.unmakeMove();
+        return plays;
+    }
+
+}
@@ -0,0 +1,72 @@
+package chess_engine;
+
+import functional_chess_model.PieceType;
+import functional_chess_model.SearchBoard;
+
+/**
+ * Utility class scoring positions for the {@link Engine}.
+ * <br><br>
+ * The score is the material balance, in hundredths of a pawn, from the point
+ * of view of the player to move, adjusted by the square each piece is on
+ * with the {@link PieceSquareTables} of the variant. The values of the fairy
+ * pieces follow the usual estimates for them: a Chancellor or an ArchBishop
+ * is worth close to a Queen, an Amazon more than one, and a Nightrider about
+ * as much as a Rook.
+ * <br><br>
+ * The engine keeps the same score up to date on each movement with an
+ * {@link IncrementalEvaluation}, and only scores whole positions here.
+ * @author Alfonso Gallego
+ */
+public final class Evaluation {
+
+    private static final int[] VALUES = new int[PieceType.values().length];
+
+    static {
+        for (PieceType type : PieceType.values()) {
+            VALUES[type.ordinal()] = switch (type) {
+                case PAWN -> 100;
+                case KNIGHT -> 300;
+                case BISHOP -> 325;
+                case ROOK -> 500;
+                case NIGHTRIDER -> 500;
+                case ARCHBISHOP -> 875;
+                case CHANCELLOR -> 900;
+                case QUEEN -> 950;
+                case AMAZON -> 1300;
+                case KING -> 0;
+            };
+        }
+    }
+
+    private Evaluation() {}
+
+    /**
+     * Gets the value of a piece.
+     * @param type {@link PieceType} of the piece.
+     * @return Its value, in hundredths of a pawn, 0 for the King, which is
+     * never traded.
+     */
+    public static int value(PieceType type) {
+        return VALUES[type.ordinal()];
+    }
+
+    /**
+     * Scores a position.
+     * @param board {@link SearchBoard} with the position.
+     * @return The score of the pieces of the player to move minus the score
+     * of the pieces of its opponent, each one with its value and the bonus
+     * of its square.
+     */
+    public static int evaluate(SearchBoard board) {
+        PieceSquareTables tables = PieceSquareTables.of(board.variant());
+        int score = 0;
+        for (int square = 0; square < board.squares(); square++) {
+            PieceType type = board.typeAt(square);
+            if (type == null) continue;
+            int pieceScore = tables.score(board.colorAt(square), type, square);
+            score += board.colorAt(square) == board.activePlayer() ? pieceScore : -pieceScore;
+        }
+        return score;
+    }
+
+}
@@ -0,0 +1,61 @@
+package chess_engine;
+
+import functional_chess_model.BoardListener;
+import functional_chess_model.ChessColor;
+import functional_chess_model.PieceType;
+import functional_chess_model.SearchBoard;
+
+/**
+ * Score of {@link Evaluation} kept up to date while a {@link SearchBoard}
+ * makes and takes back movements, instead of adding up every piece on each
+ * position scored.
+ * <br><br>
+ * Once attached to a board, each piece added to or removed from it adds or
+ * subtracts its {@link PieceSquareTables} score, so a movement costs a
+ * couple of table lookups: two for a quiet one, three for a capture or a
+ * crowning and four for castling.
+ * @author Alfonso Gallego
+ */
+public final class IncrementalEvaluation implements BoardListener {
+
+    private PieceSquareTables tables;
+    /**
+     * Score of the pieces of White minus the score of the pieces of Black.
+     */
+    private int score;
+
+    /**
+     * Starts following a board, replacing the board followed before, if any.
+     * @param board {@link SearchBoard} to follow. Its listener is replaced
+     * by this evaluation.
+     */
+    public void attach(SearchBoard board) {
+        tables = PieceSquareTables.of(board.variant());
+        score = 0;
+        board.setListener(this);
+    }
+
+    /**
+     * Gets the score of the position of the board followed.
+     * @param player {@link ChessColor} of the player to score the position
+     * for, usually the one to move.
+     * @return The same score as {@link Evaluation#evaluate(SearchBoard)}
+     * when {@code player} is to move.
+     */
+    public int evaluate(ChessColor player) {
+        return player == ChessColor.WHITE ? score : -score;
+    }
+
+    @Override
+    public void pieceAdded(ChessColor color, PieceType type, int square) {
+        int pieceScore = tables.score(color, type, square);
+        score += color == ChessColor.WHITE ? pieceScore : -pieceScore;
+    }
+
+    @Override
+    public void pieceRemoved(ChessColor color, PieceType type, int square) {
+        int pieceScore = tables.score(color, type, square);
+        score -= color == ChessColor.WHITE ? pieceScore : -pieceScore;
+    }
+
+}
@@ -0,0 +1,187 @@
+package chess_engine;
+
+import functional_chess_model.Play;
+import functional_chess_model.PieceType;
+import functional_chess_model.SearchBoard;
+
+import java.util.Arrays;
+
+/**
+ * Orders the movements of each node of a search of the {@link Engine} so that
+ * the ones most likely to be the best are tried first, which makes alpha-beta
+ * cut off more of the tree.
+ * <br><br>
+ * Movements are tried in this order:
+ * <ol>
+ *     <li>The movement of the previous principal variation or the best one
+ *     stored in the {@link TranspositionTable}.</li>
+ *     <li>Captures and crownings, the most valuable victims first and, for
+ *     the same victim, the least valuable attackers first (MVV-LVA), with
+ *     the values of {@link Evaluation}, fairy pieces included.</li>
+ *     <li>The two killer movements of the ply: the last quiet movements that
+ *     caused a cutoff on another node of the same ply.</li>
+ *     <li>The other quiet movements, by their history score: how many
+ *     cutoffs the same {@link PieceType} moving to the same square caused,
+ *     deeper cutoffs counting more.</li>
+ * </ol>
+ * Movements are scored once per node and picked one at a time, so the ones
+ * left after a cutoff are never sorted.
+ * <br><br>
+ * Killers and history are kept between the iterations of a search, and the
+ * history decays between searches. A MoveOrdering isn't thread-safe: each
+ * engine has its own.
+ * @author Alfonso Gallego
+ */
+public final class MoveOrdering {
+
+    private static final int FIRST_SCORE = Integer.MAX_VALUE;
+    private static final int CAPTURE_SCORE = 1 << 30;
+    private static final int KILLER_SCORE = 1 << 29;
+    /**
+     * History score from which every history score is halved, kept below
+     * {@link #KILLER_SCORE}.
+     */
+    private static final int HISTORY_LIMIT = 1 << 20;
+    private static final int KILLERS = 2;
+    /**
+     * Number of square indexes of the largest board a {@link SearchBoard}
+     * supports.
+     */
+    private static final int SQUARES = 128;
+
+    private final int[][] scores = new int[Engine.MAX_PLY + 1][SearchBoard.MAX_MOVES];
+    private final int[][] killers = new int[Engine.MAX_PLY + 1][KILLERS];
+    /**
+     * History score of each {@link PieceType} moving to each square.
+     */
+    private final int[] history = new int[PieceType.values().length * SQUARES];
+
+    /**
+     * Gets the MVV-LVA score of a capture.
+     * @param victim {@link PieceType} captured.
+     * @param attacker {@link PieceType} capturing.
+     * @return A score that is higher for more valuable victims and, for the
+     * same victim, for less valuable attackers.
+     */
+    public static int mvvLva(PieceType victim, PieceType attacker) {
+        return Evaluation.value(victim) * 16 - Evaluation.value(attacker) / 16;
+    }
+
+    /**
+     * Gets the MVV-LVA score of a play of a {@link functional_chess_model.Chess}
+     * game, the same one the engine gives to the movement.
+     * @param play {@link Play} to score.
+     * @return The {@link MoveOrdering#mvvLva(PieceType, PieceType)} score of
+     * the play if it's a capture, plus the value of the piece a pawn is
+     * crowned into, if any, or 0 if it's neither.
+     */
+    public static int captureScore(Play play) {
+        int score = play.pieceCaptured() == null ? 0 : mvvLva(PieceType.of(play.pieceCaptured()), PieceType.of(play.piece()));
+        return play.pieceCrowned() == null ? score : score + Evaluation.value(PieceType.of(play.pieceCrowned()));
+    }
+
+    /**
+     * Checks whether a movement is quiet, neither capturing nor crowning.
+     * @param board {@link SearchBoard} on the position before the movement.
+     * @param move Encoded movement.
+     * @return True if the movement doesn't change the material on the board.
+     */
+    public static boolean isQuiet(SearchBoard board, int move) {
+        return !isCapture(board, move) && SearchBoard.moveCrowning(move) == null;
+    }
+
+    private static boolean isCapture(SearchBoard board, int move) {
+        if (SearchBoard.isEnPassant(move)) return true;
+        int to = SearchBoard.moveTo(move);
+        return board.typeAt(to) != null && board.colorAt(to) != board.activePlayer();
+    }
+
+    /**
+     * Forgets the killers and halves the history, before a new search.
+     */
+    public void newSearch() {
+        for (int[] plyKillers : killers) Arrays.fill(plyKillers, 0);
+        for (int i = 0; i < history.length; i++) history[i] /= 2;
+    }
+
+    /**
+     * Scores the movements of a node, to pick them later with
+     * {@link MoveOrdering#next(int[], int, int, int)}.
+     * @param board {@link SearchBoard} on the position of the node.
+     * @param moves Movements of the node.
+     * @param count Number of movements.
+     * @param ply Ply of the node.
+     * @param firstMove Movement to try before any other, or 0 if there's none.
+     */
+    public void score(SearchBoard board, int[] moves, int count, int ply, int firstMove) {
+        int[] plyScores = scores[ply];
+        int[] plyKillers = killers[ply];
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            PieceType crowning = SearchBoard.moveCrowning(move);
+            PieceType mover = board.typeAt(SearchBoard.moveFrom(move));
+            if (move == firstMove) plyScores[i] = FIRST_SCORE;
+            else if (SearchBoard.isEnPassant(move)) plyScores[i] = CAPTURE_SCORE + mvvLva(PieceType.PAWN, PieceType.PAWN);
+            else if (isCapture(board, move) || crowning != null) {
+                PieceType victim = board.typeAt(SearchBoard.moveTo(move));
+                int score = victim == null || board.colorAt(SearchBoard.moveTo(move)) == board.activePlayer() ? 0 : mvvLva(victim, mover);
+                plyScores[i] = CAPTURE_SCORE + score + (crowning == null ? 0 : Evaluation.value(crowning));
+            }
+            else if (move == plyKillers[0]) plyScores[i] = KILLER_SCORE + 1;
+            else if (move == plyKillers[1]) plyScores[i] = KILLER_SCORE;
+            else plyScores[i] = history[historyIndex(mover, SearchBoard.moveTo(move))];
+        }
+    }
+
+    /**
+     * Picks the next movement to try, moving it to the given index.
+     * @param moves Movements of the node, scored with
+     * {@link MoveOrdering#score(SearchBoard, int[], int, int, int)}.
+     * @param index Index of the movement to pick, the number of movements
+     * already tried.
+     * @param count Number of movements.
+     * @param ply Ply of the node.
+     * @return The movement left with the highest score.
+     */
+    public int next(int[] moves, int index, int count, int ply) {
+        int[] plyScores = scores[ply];
+        int best = index;
+        for (int i = index + 1; i < count; i++) {
+            if (plyScores[i] > plyScores[best]) best = i;
+        }
+        int move = moves[best];
+        moves[best] = moves[index];
+        moves[index] = move;
+        int score = plyScores[best];
+        plyScores[best] = plyScores[index];
+        plyScores[index] = score;
+        return move;
+    }
+
+    /**
+     * Records a movement that caused a cutoff, if it's quiet, as a killer of
+     * its ply and in the history.
+     * @param board {@link SearchBoard} on the position of the node.
+     * @param move Encoded movement.
+     * @param ply Ply of the node.
+     * @param depth Depth left on the node.
+     */
+    public void cutoff(SearchBoard board, int move, int ply, int depth) {
+        if (!isQuiet(board, move)) return;
+        int[] plyKillers = killers[ply];
+        if (plyKillers[0] != move) {
+            plyKillers[1] = plyKillers[0];
+            plyKillers[0] = move;
+        }
+        int index = historyIndex(board.typeAt(SearchBoard.moveFrom(move)), SearchBoard.moveTo(move));
+        history[index] += depth * depth;
+        if (history[index] >= HISTORY_LIMIT) {
+            for (int i = 0; i < history.length; i++) history[i] /= 2;
+        }
+    }
+
+    private static int historyIndex(PieceType type, int square) {
+        return type.ordinal() * SQUARES + square;
+    }
+
+}
@@ -0,0 +1,212 @@
+package chess_engine;
+
+import functional_chess_model.Chess;
+import functional_chess_model.Play;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts the leaf nodes of the tree of legal movements of a game, like
+ * {@link Perft}, splitting the tree among the threads of a
+ * {@link ForkJoinPool}.
+ * <br><br>
+ * The tree is walked on the immutable {@link Chess} states, which can be
+ * shared between threads as they are. Each play of the root and of the
+ * shallow plies is counted by its own task, while subtrees of
+ * {@link #SEQUENTIAL_DEPTH} plies or less are counted by the thread that
+ * reaches them. The counts of subtrees of at least two plies are stored in a
+ * concurrent table keyed by the Zobrist key of the position and the depth,
+ * so positions reached through different orders of the same plays are only
+ * counted once, by whichever thread gets to them first.
+ * @author Alfonso Gallego
+ */
+public final class ParallelPerft implements AutoCloseable {
+
+    /**
+     * Depth from which subtrees are counted by a single thread instead of
+     * being split into more tasks.
+     */
+    public static final int SEQUENTIAL_DEPTH = 2;
+
+    private final ForkJoinPool pool;
+    /**
+     * Counts of the subtrees already walked, or {@code null} if they aren't
+     * stored.
+     */
+    private final Map<CacheKey, Long> cache;
+    private final int cacheCapacity;
+
+    /**
+     * Key of a subtree in the cache.
+     * @param zobristKey Zobrist key of the position the subtree starts from.
+     * @param depth Depth of the subtree.
+     */
+    private record CacheKey(long zobristKey, int depth) {}
+
+    /**
+     * Result of counting the same tree with a given number of threads.
+     * @param threads Number of threads used.
+     * @param nodes Number of leaf nodes found.
+     * @param nanos Time taken, in nanoseconds.
+     * @param speedup Time taken by the first run divided by {@code nanos},
+     * scaled by the number of threads of the first run, which is usually 1.
+     * @param efficiency {@code speedup} divided by {@code threads}, 1 if the
+     * threads are used perfectly.
+     */
+    public record Scaling(int threads, long nodes, long nanos, double speedup, double efficiency) {}
+
+    /**
+     * Creates a counter with its own pool of threads.
+     * @param threads Number of threads of the pool.
+     * @param cacheCapacity Maximum number of subtree counts stored, or 0 to
+     * store none. Once it's full, new counts are no longer stored.
+     */
+    public ParallelPerft(int threads, int cacheCapacity) {
+        this.pool = new ForkJoinPool(threads);
+        this.cacheCapacity = cacheCapacity;
+        this.cache = cacheCapacity > 0 ? new ConcurrentHashMap<>() : null;
+    }
+
+    /**
+     * Getter for the number of threads.
+     * @return The parallelism of the pool of threads of this counter.
+     */
+    public int threads() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Counts the leaf nodes of a game.
+     * @param game {@link Chess} state to start from.
+     * @param depth Number of plies to walk.
+     * @return The same count as {@link Perft#perft(Chess, int)}.
+     * @throws IllegalArgumentException If the depth is negative.
+     */
+    public long perft(Chess game, int depth) {
+        if (depth < 0) throw new IllegalArgumentException("The depth can't be negative, but it was " + depth);
+        return pool.invoke(new PerftTask(game, depth));
+    }
+
+    /**
+     * Counts the leaf nodes under each legal play of a game.
+     * @param game {@link Chess} state to start from.
+     * @param depth Number of plies to walk, including the first one.
+     * @return The same map as {@link Perft#divide(Chess, int)}.
+     * @throws IllegalArgumentException If the depth isn't positive.
+     */
+    public Map<Play, Long> divide(Chess game, int depth) {
+        if (depth < 1) throw new IllegalArgumentException("The depth must be positive, but it was " + depth);
+        List<Play> plays = game.legalMoves();
+        List<PerftTask> tasks = new ArrayList<>(plays.size());
+        for (Play play : plays) tasks.add(new PerftTask(game.tryToPlay(play).orElseThrow(), depth - 1));
+        pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+        Map<Play, Long> counts = new LinkedHashMap<>();
+        for (int i = 0; i < plays.size(); i++) counts.put(plays.get(i), tasks.get(i).join());
+        return counts;
+    }
+
+    /**
+     * Empties the cache of subtree counts.
+     */
+    public void clearCache() {
+        if (cache != null) cache.clear();
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    /**
+     * Counts the same tree with each number of threads, with an empty cache
+     * each time, after an untimed run that warms up the JIT compiler so that
+     * it doesn't count as speedup of the later runs.
+     * @param game {@link Chess} state to start from.
+     * @param depth Number of plies to walk.
+     * @param threadCounts Numbers of threads to try. The first one is the
+     * baseline the speedups are measured against.
+     * @param cacheCapacity Maximum number of subtree counts stored on each
+     * run, or 0 to store none.
+     * @return The result of each run, in the same order as
+     * {@code threadCounts}.
+     */
+    public static List<Scaling> scaling(Chess game, int depth, int[] threadCounts, int cacheCapacity) {
+        List<Scaling> results = new ArrayList<>(threadCounts.length);
+        try (ParallelPerft warmUp = new ParallelPerft(threadCounts[0], cacheCapacity)) {
+            warmUp.perft(game, depth);
+        }
+        long baseline = 0;
+        int baselineThreads = 0;
+        for (int threads : threadCounts) {
+            try (ParallelPerft perft = new ParallelPerft(threads, cacheCapacity)) {
+                long start = System.nanoTime();
+                long nodes = perft.perft(game, depth);
+                long nanos = Math.max(System.nanoTime() - start, 1);
+                if (results.isEmpty()) {
+                    baseline = nanos;
+                    baselineThreads = threads;
+                }
+                double speedup = (double) baseline / nanos * baselineThreads;
+                results.add(new Scaling(threads, nodes, nanos, speedup, speedup / threads));
+            }
+        }
+        return results;
+    }
+
+    private final class PerftTask extends RecursiveTask<Long> {
+
+        private final Chess game;
+        private final int depth;
+
+        private PerftTask(Chess game, int depth) {
+            this.game = game;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Long compute() {
+            if (depth <= SEQUENTIAL_DEPTH) return count(game, depth);
+            Long cached = cached(game, depth);
+            if (cached != null) return cached;
+            List<Play> plays = game.legalMoves();
+            List<PerftTask> tasks = new ArrayList<>(plays.size());
+            for (Play play : plays) tasks.add(new PerftTask(game.tryToPlay(play).orElseThrow(), depth - 1));
+            invokeAll(tasks);
+            long nodes = 0;
+            for (PerftTask task : tasks) nodes += task.join();
+            store(game, depth, nodes);
+            return nodes;
+        }
+    }
+
+    /**
+     * Counts a subtree in the current thread, looking up and storing the
+     * counts of its subtrees in the cache.
+     */
+    private long count(Chess game, int depth) {
+        if (depth == 0) return 1;
+        if (depth == 1) return game.legalMoves().size();
+        Long cached = cached(game, depth);
+        if (cached != null) return cached;
+        long nodes = 0;
+        for (Play play : game.legalMoves()) nodes += count(game.tryToPlay(play).orElseThrow(), depth - 1);
+        store(game, depth, nodes);
+        return nodes;
+    }
+
+    private Long cached(Chess game, int depth) {
+        return cache == null ? null : cache.get(new CacheKey(game.zobristKey(), depth));
+    }
+
+    private void store(Chess game, int depth, long nodes) {
+        if (cache != null && cache.size() < cacheCapacity) cache.put(new CacheKey(game.zobristKey(), depth), nodes);
+    }
+
+}
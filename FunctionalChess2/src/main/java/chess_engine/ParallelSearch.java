@@ -0,0 +1,206 @@
+package chess_engine;
+
+import functional_chess_model.Chess;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Searches the best play of a game with several threads, each one running its
+ * own {@link Engine} on the same root and sharing one
+ * {@link TranspositionTable} (a scheme known as Lazy SMP).
+ * <br><br>
+ * The main engine runs on the calling thread with the given
+ * {@link SearchLimits}, and its result is the one returned. The helper
+ * engines search without limits until the main one is done, starting on
+ * staggered depths, and only share what they find through the table: the
+ * main engine finds the positions the helpers already searched and cuts its
+ * tree short on them, or tries their best movements first.
+ * <br><br>
+ * A ParallelSearch runs one search at a time, like an {@link Engine}, and
+ * {@link ParallelSearch#stop()} can be called from any thread.
+ * @author Alfonso Gallego
+ */
+public final class ParallelSearch implements AutoCloseable {
+
+    private final TranspositionTable table;
+    private final Engine main;
+    private final Engine[] helpers;
+    /**
+     * Threads of the helpers, or {@code null} if there are none.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Result of searching the same game to the same depth with a given number
+     * of threads.
+     * @param threads Number of threads used.
+     * @param nodes Number of nodes visited by all threads.
+     * @param nanos Time taken, in nanoseconds.
+     * @param speedup Time taken by the first run divided by {@code nanos},
+     * scaled by the number of threads of the first run, which is usually 1.
+     * @param efficiency {@code speedup} divided by {@code threads}, 1 if the
+     * threads are used perfectly.
+     */
+    public record Scaling(int threads, long nodes, long nanos, double speedup, double efficiency) {
+
+        /**
+         * Gets the speed of all threads together.
+         * @return The number of nodes visited per second.
+         */
+        public long nodesPerSecond() {
+            return Math.round(nodes * 1e9 / nanos);
+        }
+    }
+
+    /**
+     * Creates a search with its own threads and table.
+     * @param threads Number of threads, including the calling one.
+     * @param megabytes Size of the shared {@link TranspositionTable}, in
+     * megabytes.
+     * @throws IllegalArgumentException If the number of threads isn't
+     * positive, or the size is out of the range the table accepts.
+     */
+    public ParallelSearch(int threads, int megabytes) {
+        if (threads < 1) throw new IllegalArgumentException("The number of threads must be positive, but it was " + threads);
+        this.table = new TranspositionTable(megabytes);
+        this.main = new Engine(table);
+        this.helpers = new Engine[threads - 1];
+        for (int i = 0; i < helpers.length; i++) helpers[i] = new Engine(table);
+        this.executor = helpers.length == 0 ? null : Executors.newFixedThreadPool(helpers.length, task -> {
+            Thread thread = new Thread(task, "search-helper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Getter for the number of threads.
+     * @return The number of engines searching at the same time.
+     */
+    public int threads() {
+        return helpers.length + 1;
+    }
+
+    public TranspositionTable table() {return table;}
+
+    /**
+     * Searches the best play of a game.
+     * @param game {@link Chess} game to search.
+     * @param limits {@link SearchLimits} of the main engine.
+     * @return The same {@link SearchResult} as
+     * {@link ParallelSearch#search(Chess, SearchLimits, Consumer)}.
+     */
+    public SearchResult search(Chess game, SearchLimits limits) {
+        return search(game, limits, result -> {});
+    }
+
+    /**
+     * Searches the best play of a game, reporting each iteration completed by
+     * the main engine.
+     * @param game {@link Chess} game to search.
+     * @param limits {@link SearchLimits} of the main engine. The node limit
+     * counts the nodes of the main engine only.
+     * @param onIteration Consumer of the {@link SearchResult} of each
+     * iteration of the main engine, called from the calling thread. Its node
+     * count includes the nodes the helpers visited so far, which are read
+     * while they run and may be slightly behind.
+     * @return The {@link SearchResult} of the main engine, with the nodes
+     * visited by all threads.
+     */
+    public SearchResult search(Chess game, SearchLimits limits, Consumer<SearchResult> onIteration) {
+        List<Future<SearchResult>> tasks = new ArrayList<>(helpers.length);
+        // The main engine ages the table when it starts, before the helpers store anything.
+        SearchResult result = main.search(game, limits, iteration -> {
+            if (tasks.isEmpty()) startHelpers(game, tasks);
+            onIteration.accept(withAllNodes(iteration, tasks));
+        });
+        for (Engine helper : helpers) helper.stop();
+        for (Future<SearchResult> task : tasks) {
+            try {
+                task.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException ex) {
+                throw new IllegalStateException("A helper search failed", ex.getCause());
+            }
+        }
+        return withAllNodes(result, tasks);
+    }
+
+    /**
+     * Asks the running search to stop. The main engine stops as
+     * {@link Engine#stop()} describes, and the helpers stop with it.
+     */
+    public void stop() {
+        main.stop();
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) executor.shutdownNow();
+    }
+
+    /**
+     * Searches the same game to the same depth with each number of threads,
+     * with an empty table each time, after an untimed run that warms up the
+     * JIT compiler so that it doesn't count as speedup of the later runs.
+     * @param game {@link Chess} game to search.
+     * @param depth Depth of the searches.
+     * @param threadCounts Numbers of threads to try. The first one is the
+     * baseline the speedups are measured against.
+     * @param megabytes Size of the table of each run, in megabytes.
+     * @return The result of each run, in the same order as
+     * {@code threadCounts}.
+     */
+    public static List<Scaling> scaling(Chess game, int depth, int[] threadCounts, int megabytes) {
+        List<Scaling> results = new ArrayList<>(threadCounts.length);
+        try (ParallelSearch warmUp = new ParallelSearch(threadCounts[0], megabytes)) {
+            warmUp.search(game, SearchLimits.ofDepth(depth));
+        }
+        long baseline = 0;
+        int baselineThreads = 0;
+        for (int threads : threadCounts) {
+            try (ParallelSearch search = new ParallelSearch(threads, megabytes)) {
+                long start = System.nanoTime();
+                long nodes = search.search(game, SearchLimits.ofDepth(depth)).nodes();
+                long nanos = Math.max(System.nanoTime() - start, 1);
+                if (results.isEmpty()) {
+                    baseline = nanos;
+                    baselineThreads = threads;
+                }
+                double speedup = (double) baseline / nanos * baselineThreads;
+                results.add(new Scaling(threads, nodes, nanos, speedup, speedup / threads));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Starts the helpers once the main engine completed its first iteration,
+     * so they don't start on a game without legal plays.
+     */
+    private void startHelpers(Chess game, List<Future<SearchResult>> tasks) {
+        for (int i = 0; i < helpers.length; i++) {
+            Engine helper = helpers[i];
+            int index = i + 1;
+            helper.prepareHelperSearch();
+            tasks.add(executor.submit(() -> helper.searchAsHelper(game, index)));
+        }
+    }
+
+    /**
+     * Adds the nodes of the helpers started to the ones of the main engine.
+     */
+    private SearchResult withAllNodes(SearchResult result, List<Future<SearchResult>> tasks) {
+        long nodes = result.nodes();
+        for (int i = 0; i < tasks.size(); i++) nodes += helpers[i].nodes();
+        return new SearchResult(result.score(), result.depth(), nodes, result.nanos(), result.principalVariation());
+    }
+
+}
@@ -0,0 +1,165 @@
+package chess_engine;
+
+import functional_chess_model.Chess;
+import functional_chess_model.GameVariant;
+import functional_chess_model.Play;
+import functional_chess_model.SearchBoard;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+
+/**
+ * Utility class counting the leaf nodes of the tree of legal movements of a
+ * game up to a given depth, known as perft, to check the correctness and
+ * measure the speed of move generation.
+ * <br><br>
+ * The tree can be walked on the immutable {@link Chess} states, performing
+ * each movement with {@link Chess#tryToPlay(Play)}, the same rules the GUI
+ * uses, or on a {@link SearchBoard}, making and unmaking encoded movements.
+ * Both must give the same counts, which for the initial position of each
+ * {@link GameVariant} are listed in {@link #REFERENCE_COUNTS}.
+ * @author Alfonso Gallego
+ */
+public final class Perft {
+
+    /**
+     * Leaf node counts from the initial position of each variant, indexed by
+     * depth minus one. The counts for STANDARD match the published ones. The
+     * counts for every other variant were found with this rules
+     * implementation, not taken from any published source, and agree between
+     * {@link Chess} and {@link SearchBoard} up to depth 4.
+     */
+    public static final Map<GameVariant, List<Long>> REFERENCE_COUNTS;
+
+    static {
+        Map<GameVariant, List<Long>> counts = new EnumMap<>(GameVariant.class);
+        counts.put(GameVariant.STANDARD, List.of(20L, 400L, 8_902L, 197_281L, 4_865_609L));
+        counts.put(GameVariant.ALMOSTCHESS, List.of(22L, 484L, 11_895L, 290_522L, 7_812_388L));
+        counts.put(GameVariant.CAPABLANCA, List.of(28L, 784L, 25_228L, 805_128L, 28_748_423L));
+        counts.put(GameVariant.GOTHIC, List.of(28L, 784L, 25_283L, 808_984L, 28_946_187L));
+        counts.put(GameVariant.JANUS, List.of(28L, 782L, 24_747L, 772_074L, 26_882_726L));
+        counts.put(GameVariant.MODERN, List.of(24L, 576L, 15_832L, 433_786L, 13_407_450L));
+        counts.put(GameVariant.TUTTIFRUTTI, List.of(23L, 529L, 15_032L, 421_458L, 13_783_699L));
+        REFERENCE_COUNTS = Collections.unmodifiableMap(counts);
+    }
+
+    private Perft() {}
+
+    /**
+     * Gets the reference count of the initial position of a variant.
+     * @param variant {@link GameVariant} whose initial position is counted.
+     * @param depth Depth of the count.
+     * @return The expected number of leaf nodes, or {@code OptionalLong.empty}
+     * if it isn't known for that depth.
+     */
+    public static OptionalLong referenceCount(GameVariant variant, int depth) {
+        List<Long> counts = REFERENCE_COUNTS.get(variant);
+        if (counts == null || depth < 1 || depth > counts.size()) return OptionalLong.empty();
+        return OptionalLong.of(counts.get(depth - 1));
+    }
+
+    /**
+     * Counts the leaf nodes of a game performing each movement on the
+     * immutable {@link Chess} states.
+     * @param game {@link Chess} state to start from.
+     * @param depth Number of plies to walk.
+     * @return The number of sequences of {@code depth} legal plays from
+     * {@code game}, 1 if the depth is 0.
+     * @throws IllegalArgumentException If the depth is negative.
+     */
+    public static long perft(Chess game, int depth) {
+        if (depth < 0) throw new IllegalArgumentException("The depth can't be negative, but it was " + depth);
+        if (depth == 0) return 1;
+        List<Play> plays = game.legalMoves();
+        if (depth == 1) return plays.size();
+        long nodes = 0;
+        for (Play play : plays) nodes += perft(game.tryToPlay(play).orElseThrow(), depth - 1);
+        return nodes;
+    }
+
+    /**
+     * Counts the leaf nodes of a position making and unmaking each movement
+     * on a {@link SearchBoard}.
+     * @param board {@link SearchBoard} to start from, which is left as it was.
+     * @param depth Number of plies to walk.
+     * @return The number of sequences of {@code depth} legal movements from
+     * the position of {@code board}, 1 if the depth is 0.
+     * @throws IllegalArgumentException If the depth is negative.
+     */
+    public static long perft(SearchBoard board, int depth) {
+        if (depth < 0) throw new IllegalArgumentException("The depth can't be negative, but it was " + depth);
+        return perft(board, depth, new int[Math.max(depth, 1)][SearchBoard.MAX_MOVES]);
+    }
+
+    private static long perft(SearchBoard board, int depth, int[][] moves) {
+        if (depth == 0) return 1;
+        int[] movesAtDepth = moves[depth - 1];
+        int count = board.legalMoves(movesAtDepth);
+        if (depth == 1) return count;
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            board.makeMove(movesAtDepth[i]);
+            nodes += perft(board, depth - 1, moves);
+            board.unmakeMove();
+        }
+        return nodes;
+    }
+
+    /**
+     * Counts the leaf nodes under each legal play of a game, performing each
+     * movement on the immutable {@link Chess} states.
+     * @param game {@link Chess} state to start from.
+     * @param depth Number of plies to walk, including the first one.
+     * @return A map from each legal {@link Play} of {@code game}, in the order
+     * they're generated, to the number of leaf nodes under it.
+     * @throws IllegalArgumentException If the depth isn't positive.
+     */
+    public static Map<Play, Long> divide(Chess game, int depth) {
+        if (depth < 1) throw new IllegalArgumentException("The depth must be positive, but it was " + depth);
+        Map<Play, Long> counts = new LinkedHashMap<>();
+        for (Play play : game.legalMoves()) counts.put(play, perft(game.tryToPlay(play).orElseThrow(), depth - 1));
+        return counts;
+    }
+
+    /**
+     * Counts the leaf nodes under each legal movement of a position, making
+     * and unmaking each movement on a {@link SearchBoard}.
+     * @param board {@link SearchBoard} to start from, which is left as it was.
+     * @param depth Number of plies to walk, including the first one.
+     * @return A map from the {@link Play} of each legal movement of
+     * {@code board}, in the order they're generated, to the number of leaf
+     * nodes under it.
+     * @throws IllegalArgumentException If the depth isn't positive.
+     */
+    public static Map<Play, Long> divide(SearchBoard board, int depth) {
+        if (depth < 1) throw new IllegalArgumentException("The depth must be positive, but it was " + depth);
+        Map<Play, Long> counts = new LinkedHashMap<>();
+        int[] moves = new int[SearchBoard.MAX_MOVES];
+        int count = board.legalMoves(moves);
+        for (int i = 0; i < count; i++) {
+            Play play = board.toPlay(moves[i]);
+            board.makeMove(moves[i]);
+            counts.put(play, perft(board, depth - 1));
+            board.unmakeMove();
+        }
+        return counts;
+    }
+
+    /**
+     * Writes a play in coordinate notation.
+     * @param play {@link Play} to write.
+     * @return The initial and final positions of the play, followed by the
+     * name of the piece the pawn was crowned into, if any, like
+     * {@code E7E8=Queen}.
+     */
+    public static String notation(Play play) {
+        String notation = play.initPos().toString() + play.finPos();
+        if (play.pieceCrowned() != null) notation += "=" + play.pieceCrowned().getClass().getSimpleName();
+        return notation;
+    }
+
+}
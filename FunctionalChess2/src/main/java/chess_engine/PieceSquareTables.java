@@ -0,0 +1,132 @@
+package chess_engine;
+
+import functional_chess_model.ChessColor;
+import functional_chess_model.GameVariant;
+import functional_chess_model.PieceType;
+import functional_chess_model.Position;
+import functional_chess_model.SearchBoard;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Scores of each piece on each square of the boards of a
+ * {@link GameVariant}, used by {@link Evaluation}: the value of the piece
+ * plus a bonus, or a penalty, for the square it's on.
+ * <br><br>
+ * The tables are built for the size of the board of each variant, so the
+ * center, the ranks a pawn advances through and the back rank of the King
+ * are the ones of 8x8, 9x9 and 8x10 boards alike:
+ * <ul>
+ *     <li>Knights, Nightriders, Bishops, ArchBishops, and to a lesser extent
+ *     Queens, Chancellors and Amazons, are worth more the closer they are to
+ *     the center.</li>
+ *     <li>Pawns are worth more the more they advance, the central ones
+ *     more.</li>
+ *     <li>Rooks are worth more on the row of the pawns of the opponent.</li>
+ *     <li>Kings are worth more on their back rank, away from the center,
+ *     and less the more they leave it.</li>
+ * </ul>
+ * The tables of the black pieces mirror those of the white ones, so a
+ * position and its mirror score the same for each player.
+ * <br><br>
+ * Seen as a whole, the tables are the weights of a linear model: each piece
+ * on its square is a feature, numbered by
+ * {@link PieceSquareTables#feature(ChessColor, PieceType, int)}, and a
+ * position scores the sum of the weights of the features on its board, the
+ * white ones added and the black ones subtracted.
+ * @author Alfonso Gallego
+ */
+public final class PieceSquareTables {
+
+    private static final PieceType[] TYPES = PieceType.values();
+    private static final Map<GameVariant, PieceSquareTables> TABLES = new EnumMap<>(GameVariant.class);
+
+    static {
+        for (GameVariant variant : GameVariant.values()) TABLES.put(variant, new PieceSquareTables(variant));
+    }
+
+    private final int squares;
+    /**
+     * Score of each piece on each square, indexed by
+     * {@code ((color * types) + type) * squares + square}.
+     */
+    private final int[] scores;
+
+    private PieceSquareTables(GameVariant variant) {
+        this.squares = variant.rows() * variant.cols();
+        this.scores = new int[ChessColor.values().length * TYPES.length * squares];
+        for (ChessColor color : ChessColor.values()) {
+            for (PieceType type : TYPES) {
+                for (int square = 0; square < squares; square++) {
+                    scores[feature(color, type, square)] = Evaluation.value(type) + bonus(variant, color, type, SearchBoard.positionOf(variant, square));
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the tables of a variant.
+     * @param variant {@link GameVariant} to get the tables of.
+     * @return The tables shared by every game of that variant.
+     */
+    public static PieceSquareTables of(GameVariant variant) {
+        return TABLES.get(variant);
+    }
+
+    /**
+     * Gets the score of a piece on a square.
+     * @param color {@link ChessColor} of the piece.
+     * @param type {@link PieceType} of the piece.
+     * @param square Index of the square, as in {@link SearchBoard}.
+     * @return The value of the piece plus the bonus of the square, in
+     * hundredths of a pawn.
+     */
+    public int score(ChessColor color, PieceType type, int square) {
+        return scores[feature(color, type, square)];
+    }
+
+    /**
+     * Gets the number of features of the boards of the variant.
+     * @return The number of pieces of each color and type times the number
+     * of squares.
+     */
+    public int features() {
+        return scores.length;
+    }
+
+    /**
+     * Gets the feature of a piece on a square.
+     * @param color {@link ChessColor} of the piece.
+     * @param type {@link PieceType} of the piece.
+     * @param square Index of the square, as in {@link SearchBoard}.
+     * @return The index of the feature, between 0 and
+     * {@link PieceSquareTables#features()}, exclusive.
+     */
+    public int feature(ChessColor color, PieceType type, int square) {
+        return (color.ordinal() * TYPES.length + type.ordinal()) * squares + square;
+    }
+
+    /**
+     * Bonus of a piece on a position, from the point of view of its player.
+     */
+    private static int bonus(GameVariant variant, ChessColor color, PieceType type, Position pos) {
+        int rows = variant.rows();
+        int cols = variant.cols();
+        // Ranks and files counted from 0, ranks from the back rank of the player.
+        int rank = color == ChessColor.WHITE ? pos.y() - 1 : rows - pos.y();
+        int file = pos.x() - 1;
+        int fileCentrality = Math.min(file, cols - 1 - file);
+        int centrality = fileCentrality + Math.min(rank, rows - 1 - rank);
+        int pawnRank = variant.initRowPawn(ChessColor.WHITE) - 1;
+        return switch (type) {
+            case KNIGHT -> 5 * centrality - 15;
+            case NIGHTRIDER, BISHOP, ARCHBISHOP -> 3 * centrality - 8;
+            case QUEEN, CHANCELLOR, AMAZON -> 2 * centrality - 5;
+            case ROOK -> rank == rows - 1 - pawnRank ? 15 : 0;
+            case PAWN -> rank <= pawnRank ? 0 : 6 * (rank - pawnRank) + 2 * fileCentrality;
+            case KING -> rank == 0 ? 2 * ((cols - 1) / 2 - fileCentrality) : -Math.min(15 * rank, 50);
+        };
+    }
+
+}
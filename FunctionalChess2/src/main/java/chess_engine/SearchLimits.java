@@ -0,0 +1,69 @@
+package chess_engine;
+
+/**
+ * Limits of a search of the {@link Engine}. The search stops as soon as any
+ * of them is reached, although the first iteration, of depth 1, is always
+ * completed so that there's a play to return.
+ * @param depth Maximum depth, in plies, between 1 and {@link Engine#MAX_PLY}.
+ * @param nodes Maximum number of nodes visited.
+ * @param millis Maximum time, in milliseconds.
+ * @author Alfonso Gallego
+ */
+public record SearchLimits(int depth, long nodes, long millis) {
+
+    /**
+     * Limits that never stop the search before the maximum depth.
+     */
+    public static final SearchLimits NONE = new SearchLimits(Engine.MAX_PLY, Long.MAX_VALUE, Long.MAX_VALUE);
+
+    /**
+     * Compact constructor checking the limits.
+     * @throws IllegalArgumentException If the depth is out of its range, or
+     * the nodes or time aren't positive.
+     */
+    public SearchLimits {
+        if (depth < 1 || depth > Engine.MAX_PLY) throw new IllegalArgumentException("The depth must be between 1 and " + Engine.MAX_PLY + ", but it was " + depth);
+        if (nodes < 1) throw new IllegalArgumentException("The node limit must be positive, but it was " + nodes);
+        if (millis < 1) throw new IllegalArgumentException("The time limit must be positive, but it was " + millis);
+    }
+
+    /**
+     * Limits the depth only.
+     * @param depth Maximum depth, in plies.
+     * @return Limits with the given depth and no other limit.
+     */
+    public static SearchLimits ofDepth(int depth) {
+        return NONE.withDepth(depth);
+    }
+
+    /**
+     * Limits the nodes only.
+     * @param nodes Maximum number of nodes.
+     * @return Limits with the given number of nodes and no other limit.
+     */
+    public static SearchLimits ofNodes(long nodes) {
+        return NONE.withNodes(nodes);
+    }
+
+    /**
+     * Limits the time only.
+     * @param millis Maximum time, in milliseconds.
+     * @return Limits with the given time and no other limit.
+     */
+    public static SearchLimits ofMillis(long millis) {
+        return NONE.withMillis(millis);
+    }
+
+    public SearchLimits withDepth(int depth) {
+        return new SearchLimits(depth, nodes, millis);
+    }
+
+    public SearchLimits withNodes(long nodes) {
+        return new SearchLimits(depth, nodes, millis);
+    }
+
+    public SearchLimits withMillis(long millis) {
+        return new SearchLimits(depth, nodes, millis);
+    }
+
+}
@@ -0,0 +1,65 @@
+package chess_engine;
+
+import functional_chess_model.Play;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Result of a completed iteration of a search of the {@link Engine}.
+ * @param score Score of the position for the player to move, in hundredths
+ * of a pawn, or a mate score as described in {@link SearchResult#isMate()}.
+ * @param depth Depth of the iteration, in plies.
+ * @param nodes Number of nodes visited since the search started.
+ * @param nanos Time since the search started, in nanoseconds.
+ * @param principalVariation Plays the search expects from both players,
+ * starting with the best play for the player to move. Empty if the game has
+ * no legal play.
+ * @author Alfonso Gallego
+ */
+public record SearchResult(int score, int depth, long nodes, long nanos, List<Play> principalVariation) {
+
+    public SearchResult {
+        principalVariation = List.copyOf(principalVariation);
+    }
+
+    /**
+     * Gets the play the search chose.
+     * @return The first play of the principal variation, or
+     * {@code Optional.empty} if the game has no legal play.
+     */
+    public Optional<Play> bestPlay() {
+        return principalVariation.isEmpty() ? Optional.empty() : Optional.of(principalVariation.getFirst());
+    }
+
+    /**
+     * Checks whether the score is a forced checkmate.
+     * @return True if the score is {@link Engine#MATE_SCORE} minus the number
+     * of plies until the player to move checkmates, or its negation if it's
+     * the one checkmated.
+     */
+    public boolean isMate() {
+        return Math.abs(score) > Engine.MATE_SCORE - Engine.MAX_PLY - 1;
+    }
+
+    /**
+     * Gets the number of moves until the checkmate.
+     * @return The number of moves of the player to move until the checkmate,
+     * positive if it checkmates and negative if it's checkmated, or 0 if the
+     * score isn't a checkmate.
+     */
+    public int mateIn() {
+        if (!isMate()) return 0;
+        int plies = Engine.MATE_SCORE - Math.abs(score);
+        return score > 0 ? (plies + 1) / 2 : -(plies / 2);
+    }
+
+    /**
+     * Gets the speed of the search.
+     * @return The number of nodes visited per second.
+     */
+    public long nodesPerSecond() {
+        return nanos == 0 ? 0 : Math.round(nodes * 1e9 / nanos);
+    }
+
+}
@@ -0,0 +1,147 @@
+package chess_engine;
+
+import functional_chess_model.Chess;
+import functional_chess_model.Play;
+import functional_chess_model.SearchBoard;
+
+import java.util.Optional;
+
+/**
+ * Decides how long the {@link Engine} thinks about a play, from the time left
+ * on the clock of the player to move.
+ * <br><br>
+ * Each play gets a share of the time left, the soft limit, assuming
+ * {@value #EXPECTED_MOVES} moves per game and at least
+ * {@value #MIN_MOVES_TO_GO} more. The search doesn't start another iteration
+ * once the soft limit is spent, but the limit is extended, up to the hard
+ * limit, while the best play keeps changing between iterations or its score
+ * drops. The hard limit, {@value #HARD_RATIO} times the soft one, is the
+ * time limit of the search, which stops it even in the middle of an
+ * iteration.
+ * <br><br>
+ * The clock of the GUI counts whole seconds, so a margin of
+ * {@value #MARGIN_MILLIS} milliseconds is kept off the time left, and the
+ * hard limit is always a small part of what remains, so the engine never
+ * loses on time while it can complete an iteration of depth 1. When there's
+ * only one legal play, it's played after that first iteration.
+ * <br><br>
+ * A TimeManager is meant for a single search: pass it to
+ * {@link Engine#search(Chess, SearchLimits, java.util.function.Consumer)}
+ * with its {@link TimeManager#limits()}, and stop the engine when
+ * {@link TimeManager#shouldStop(SearchResult)} returns true for an
+ * iteration.
+ * @author Alfonso Gallego
+ */
+public final class TimeManager {
+
+    /**
+     * Expected number of moves of each player in a game.
+     */
+    public static final int EXPECTED_MOVES = 40;
+    /**
+     * Minimum number of moves the time left is shared among.
+     */
+    public static final int MIN_MOVES_TO_GO = 15;
+    /**
+     * Ratio between the hard and the soft limit.
+     */
+    public static final int HARD_RATIO = 4;
+    /**
+     * Time kept off the clock, in milliseconds, for the rounding of its
+     * seconds and for performing the play.
+     */
+    public static final long MARGIN_MILLIS = 1100;
+    /**
+     * Score drop, in hundredths of a pawn, from which the soft limit is
+     * extended.
+     */
+    private static final int SCORE_DROP = 30;
+
+    private final SearchLimits baseLimits;
+    private final long softMillis;
+    private final long hardMillis;
+    private final boolean isForced;
+    private Optional<Play> lastBestPlay = Optional.empty();
+    private int lastScore;
+    /**
+     * How much the best play changed on the last iterations, the recent
+     * changes counting more.
+     */
+    private double instability;
+
+    private TimeManager(SearchLimits baseLimits, long softMillis, long hardMillis, boolean isForced) {
+        this.baseLimits = baseLimits;
+        this.softMillis = softMillis;
+        this.hardMillis = hardMillis;
+        this.isForced = isForced;
+    }
+
+    /**
+     * Budgets the time of the next play of a game from the clock.
+     * @param game {@link Chess} game whose active player is to move.
+     * @param millisLeft Time left on the clock of the active player, in
+     * milliseconds.
+     * @return A TimeManager for the search of that play.
+     */
+    public static TimeManager ofClock(Chess game, long millisLeft) {
+        long available = Math.max(millisLeft - MARGIN_MILLIS, 0);
+        int movesToGo = Math.max(EXPECTED_MOVES - game.playHistory().size() / 2, MIN_MOVES_TO_GO);
+        long soft = Math.max(available / movesToGo, 1);
+        return new TimeManager(SearchLimits.NONE, soft, soft * HARD_RATIO, isForced(game));
+    }
+
+    /**
+     * Budgets the time of the next play of a game from fixed limits, as in
+     * untimed games: the time limit is both the soft and the hard one, so
+     * only forced plays are searched for less time.
+     * @param game {@link Chess} game whose active player is to move.
+     * @param limits {@link SearchLimits} of the search.
+     * @return A TimeManager for the search of that play.
+     */
+    public static TimeManager ofLimits(Chess game, SearchLimits limits) {
+        return new TimeManager(limits, limits.millis(), limits.millis(), isForced(game));
+    }
+
+    private static boolean isForced(Chess game) {
+        return SearchBoard.of(game).legalMoves(new int[SearchBoard.MAX_MOVES]) == 1;
+    }
+
+    public long softMillis() {return softMillis;}
+
+    public long hardMillis() {return hardMillis;}
+
+    /**
+     * Checks whether the player to move has a single legal play.
+     * @return True if there's nothing to think about.
+     */
+    public boolean isForced() {return isForced;}
+
+    /**
+     * Gets the limits of the search.
+     * @return {@link SearchLimits} with the hard limit as its time limit,
+     * and a depth of 1 if the play is forced.
+     */
+    public SearchLimits limits() {
+        SearchLimits limits = baseLimits.withMillis(hardMillis);
+        return isForced ? limits.withDepth(1) : limits;
+    }
+
+    /**
+     * Checks, after an iteration is completed, whether the search should
+     * stop rather than start the next one.
+     * @param iteration {@link SearchResult} of the iteration.
+     * @return True if the time spent since the search started reached the
+     * soft limit, extended by how unstable the best play was.
+     */
+    public boolean shouldStop(SearchResult iteration) {
+        instability /= 2;
+        if (lastBestPlay.isPresent() && !lastBestPlay.equals(iteration.bestPlay())) instability += 1;
+        boolean scoreDropped = lastBestPlay.isPresent() && iteration.score() <= lastScore - SCORE_DROP;
+        lastBestPlay = iteration.bestPlay();
+        lastScore = iteration.score();
+        if (isForced) return true;
+        double extension = Math.min(1 + instability + (scoreDropped ? 1 : 0), HARD_RATIO);
+        return iteration.nanos() >= softMillis * extension * 1_000_000;
+    }
+
+}
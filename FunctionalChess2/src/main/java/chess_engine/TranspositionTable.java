@@ -0,0 +1,215 @@
+package chess_engine;
+
+import functional_chess_model.Chess;
+import functional_chess_model.SearchBoard;
+
+import java.util.Arrays;
+
+/**
+ * Table of the results of the positions already searched by the
+ * {@link Engine}, keyed by their Zobrist key, the same one
+ * {@link Chess#zobristKey()} and {@link SearchBoard#zobristKey()} return.
+ * <br><br>
+ * The table is a preallocated array of {@code long}s, sized in megabytes.
+ * Each entry takes two of them: the data, packing the best movement, score,
+ * depth, {@link Bound} and age of the search that stored it, and the key
+ * XORed with that data. Entries are read and written without locks, so a
+ * thread can read an entry while another one writes it, but a torn entry
+ * doesn't give back its key when XORed with its data and is treated as a
+ * miss. This lets any number of searches share the same table.
+ * <br><br>
+ * Entries are grouped in buckets of {@value #BUCKET_ENTRIES}, filling a cache
+ * line. A new entry replaces the one of the same position, if there's one in
+ * its bucket, or else the one with the lowest depth, entries of older
+ * searches counting as shallower the older they are.
+ * @author Alfonso Gallego
+ */
+public final class TranspositionTable {
+
+    /**
+     * Kind of score stored in an entry.
+     */
+    public enum Bound {
+        /**
+         * The score is exact.
+         */
+        EXACT,
+        /**
+         * The search failed high: the score is a lower bound.
+         */
+        LOWER,
+        /**
+         * The search failed low: the score is an upper bound.
+         */
+        UPPER
+    }
+
+    private static final Bound[] BOUNDS = Bound.values();
+    /**
+     * Number of entries of each bucket.
+     */
+    public static final int BUCKET_ENTRIES = 4;
+    /**
+     * Maximum size of a table, in megabytes.
+     */
+    public static final int MAX_MEGABYTES = 8192;
+    private static final int ENTRY_BYTES = 2 * Long.BYTES;
+
+    //<editor-fold defaultstate="collapsed" desc="Entry encoding">
+
+    private static final int MOVE_BITS = 21;
+    private static final int SCORE_SHIFT = MOVE_BITS;
+    private static final int SCORE_BITS = 20;
+    private static final int SCORE_OFFSET = 1 << SCORE_BITS - 1;
+    private static final int DEPTH_SHIFT = SCORE_SHIFT + SCORE_BITS;
+    private static final int DEPTH_BITS = 7;
+    private static final int BOUND_SHIFT = DEPTH_SHIFT + DEPTH_BITS;
+    private static final int AGE_SHIFT = BOUND_SHIFT + 2;
+    private static final int AGE_BITS = 6;
+    private static final int AGE_MASK = (1 << AGE_BITS) - 1;
+    /**
+     * Flag telling a stored entry from an empty one.
+     */
+    private static final long USED_FLAG = 1L << AGE_SHIFT + AGE_BITS;
+
+    private static long pack(int move, int score, int depth, Bound bound, int age) {
+        return (move & (1L << MOVE_BITS) - 1)
+            | (long) (score + SCORE_OFFSET) << SCORE_SHIFT
+            | (long) depth << DEPTH_SHIFT
+            | (long) bound.ordinal() << BOUND_SHIFT
+            | (long) age << AGE_SHIFT
+            | USED_FLAG;
+    }
+
+    private static int moveOf(long data) {return (int) (data & (1L << MOVE_BITS) - 1);}
+    private static int scoreOf(long data) {return (int) (data >>> SCORE_SHIFT & (1L << SCORE_BITS) - 1) - SCORE_OFFSET;}
+    private static int depthOf(long data) {return (int) (data >>> DEPTH_SHIFT & (1L << DEPTH_BITS) - 1);}
+    private static Bound boundOf(long data) {return BOUNDS[(int) (data >>> BOUND_SHIFT & 0x3)];}
+    private static int ageOf(long data) {return (int) (data >>> AGE_SHIFT & AGE_MASK);}
+
+    //</editor-fold>
+
+    /**
+     * Entry found in the table.
+     * @param move Best movement found for the position, encoded as in
+     * {@link SearchBoard}, or 0 if none was.
+     * @param score Score of the position, as stored.
+     * @param depth Depth of the search that stored it.
+     * @param bound {@link Bound} of the score.
+     */
+    public record Entry(int move, int score, int depth, Bound bound) {}
+
+    /**
+     * Pairs of {@code key ^ data} and {@code data} of each entry.
+     */
+    private final long[] table;
+    private final int bucketMask;
+    private final int megabytes;
+    private volatile int age;
+
+    /**
+     * Creates an empty table.
+     * @param megabytes Size of the table, in megabytes. The number of buckets
+     * is rounded down to a power of two.
+     * @throws IllegalArgumentException If the size isn't between 1 and
+     * {@link #MAX_MEGABYTES}.
+     */
+    public TranspositionTable(int megabytes) {
+        if (megabytes < 1 || megabytes > MAX_MEGABYTES) throw new IllegalArgumentException("The size must be between 1 and " + MAX_MEGABYTES + " MB, but it was " + megabytes);
+        long buckets = Long.highestOneBit((long) megabytes * 1024 * 1024 / (BUCKET_ENTRIES * ENTRY_BYTES));
+        this.table = new long[Math.toIntExact(buckets * BUCKET_ENTRIES * 2)];
+        this.bucketMask = (int) buckets - 1;
+        this.megabytes = megabytes;
+    }
+
+    public int megabytes() {return megabytes;}
+
+    /**
+     * Getter for the number of entries.
+     * @return The maximum number of positions the table can hold.
+     */
+    public int capacity() {return table.length / 2;}
+
+    /**
+     * Marks the start of a new search, so the entries stored by the previous
+     * ones age and are replaced first.
+     */
+    public void newSearch() {
+        age = age + 1 & AGE_MASK;
+    }
+
+    /**
+     * Empties the table.
+     */
+    public void clear() {
+        Arrays.fill(table, 0);
+        age = 0;
+    }
+
+    /**
+     * Looks up a position.
+     * @param key Zobrist key of the position.
+     * @return The {@link Entry} stored for it, or {@code null} if there's none.
+     */
+    public Entry probe(long key) {
+        int index = bucketIndex(key);
+        for (int i = index; i < index + 2 * BUCKET_ENTRIES; i += 2) {
+            long data = table[i + 1];
+            if ((table[i] ^ data) == key && data != 0) return new Entry(moveOf(data), scoreOf(data), depthOf(data), boundOf(data));
+        }
+        return null;
+    }
+
+    /**
+     * Stores the result of searching a position.
+     * @param key Zobrist key of the position.
+     * @param move Best movement found, or 0 if none was, in which case the
+     * one already stored for the position is kept.
+     * @param score Score found.
+     * @param depth Depth searched, between 0 and {@link Engine#MAX_PLY}.
+     * @param bound {@link Bound} of the score.
+     */
+    public void store(long key, int move, int score, int depth, Bound bound) {
+        int index = bucketIndex(key);
+        int currentAge = age;
+        int victim = index;
+        int victimWorth = Integer.MAX_VALUE;
+        for (int i = index; i < index + 2 * BUCKET_ENTRIES; i += 2) {
+            long data = table[i + 1];
+            if ((table[i] ^ data) == key && data != 0) {
+                if (move == 0) move = moveOf(data);
+                victim = i;
+                break;
+            }
+            // Entries of older searches are worth less the older they are.
+            int worth = data == 0 ? Integer.MIN_VALUE : depthOf(data) - 8 * (currentAge - ageOf(data) & AGE_MASK);
+            if (worth < victimWorth) {
+                victim = i;
+                victimWorth = worth;
+            }
+        }
+        long data = pack(move, score, depth, bound, currentAge);
+        table[victim] = key ^ data;
+        table[victim + 1] = data;
+    }
+
+    /**
+     * Estimates how full the table is.
+     * @return The permille of the entries of the first thousand buckets (or
+     * all of them, if there are fewer) stored by the current search.
+     */
+    public int usagePermille() {
+        int buckets = Math.min(1000, bucketMask + 1);
+        int used = 0;
+        int currentAge = age;
+        for (int i = 1; i < buckets * BUCKET_ENTRIES * 2; i += 2) {
+            if (table[i] != 0 && ageOf(table[i]) == currentAge) used++;
+        }
+        return used * 1000 / (buckets * BUCKET_ENTRIES);
+    }
+
+    private int bucketIndex(long key) {
+        return (int) (key & bucketMask) * BUCKET_ENTRIES * 2;
+    }
+
+}
@@ -104,6 +104,15 @@ public class ChessController implements ActionListener {
      */
     public void consumeBlackSecond() {blackSecondsLeft--;}
 
+    /**
+     * Gets the seconds left on the clock of a player.
+     * @param color {@link ChessColor} of the player.
+     * @return The seconds left for that player, as shown by the view.
+     */
+    public int secondsLeft(ChessColor color) {
+        return color == ChessColor.WHITE ? whiteSecondsLeft : blackSecondsLeft;
+    }
+
     public List<Position> positionsThatValidate(Predicate<Position> condition) {
         return IntStream.rangeClosed(1, game.variant().rows())
             .boxed()
@@ -115,13 +124,45 @@ public class ChessController implements ActionListener {
             .toList();
     }
 
+    /**
+     * Gets the positions the given piece can legally move to.
+     * @param piece {@link Piece} to move.
+     * @return The final positions of the {@link Play}s generated by
+     * {@link ChessController#validMovesOf(Chess, Piece)}, without repetitions.
+     */
     public List<Position> validMovesOf(Piece piece) {
-        return positionsThatValidate(pos -> (piece.isLegalMovement(game, pos) ||
-            (piece instanceof King && game.castlingTypeOfPlay(piece, pos).isPresent())));
+        return validMovesOf(game, piece);
+    }
+
+    /**
+     * Gets the positions the given piece can legally move to in a game.
+     * @param game {@link Chess} game where the piece is moving.
+     * @param piece {@link Piece} to move.
+     * @return The final positions of the {@link Play}s generated by
+     * {@link Chess#legalMovesOf(Piece)}, including castling, without the
+     * repetitions caused by the different crowning choices.
+     */
+    public static List<Position> validMovesOf(Chess game, Piece piece) {
+        return game.legalMovesOf(piece).stream()
+            .map(Play::finPos)
+            .distinct()
+            .toList();
     }
 
+    /**
+     * Gets the positions the given piece could move to if it weren't for the
+     * check they'd cause.
+     * @param piece {@link Piece} to move.
+     * @return The positions of {@link Piece#pseudoLegalPositions(Chess)} where
+     * the movement is legal ignoring checks, but not accounting for them. The
+     * legal ones are taken from {@link Chess#legalMovesOf(Piece)}, which the
+     * game computes once per state.
+     */
     public List<Position> validMovesThatWouldCauseCheckOf(Piece piece) {
-        return positionsThatValidate(pos -> piece.isLegalMovement(game, pos, false) && !piece.isLegalMovement(game, pos));
+        Set<Position> validMoves = Set.copyOf(validMovesOf(piece));
+        return piece.pseudoLegalPositions(game).stream()
+            .filter(pos -> !validMoves.contains(pos) && piece.isLegalMovement(game, pos, false))
+            .toList();
     }
 
     public List<Position> piecesThatCanCaptureKing(Piece piece, Position finPos) {
@@ -181,7 +222,8 @@ public class ChessController implements ActionListener {
      * Part of the action listener for the view's buttons on the chess board.
      * @param x X coordinate of the button clicked.
      * @param y Y coordinate of the button clicked.
-     * @param sendMove State parameter to track if the move will be sent to the server/client in an online game.
+     * @param sendMove State parameter to track if the move will be sent to the server/client in an online game,
+     * or to the computer player in a game against the computer.
      * @param crowningType Type to crown a {@link Pawn} into, if the parameter is not null, instead of showing
      * the crowning menu.
      */
@@ -255,7 +297,7 @@ public class ChessController implements ActionListener {
                     game = game.crownPawnChain(piece, crowningType != null ? crowningType : crownedType);
                 }
 
-                if (isOnlineGame && sendMove) notifyMovePerformed(selectedPosition, clickedPos, crowningType != null ? crowningType : crownedType);
+                if (sendMove) notifyMovePerformed(selectedPosition, clickedPos, crowningType != null ? crowningType : crownedType);
                 Optional<Play> lastPlay = game.getLastPlay();
                 lastPlay.ifPresent(view::updatePlayHistory);
                 view.updateBoard();
@@ -291,6 +333,9 @@ public class ChessController implements ActionListener {
         view.updateBoard();
         view.updateActivePlayer(this.game.activePlayer().toString());
         view.reloadPlayHistory();
+        for (MoveListener listener : moveListeners) {
+            listener.onGameSet(game);
+        }
     }
 
     public void setDefaultGame() {
@@ -0,0 +1,124 @@
+package controller;
+
+import chess_engine.Engine;
+import chess_engine.SearchLimits;
+import chess_engine.SearchResult;
+import chess_engine.TimeManager;
+import chess_engine.TranspositionTable;
+import controller.online.MoveListener;
+import functional_chess_model.Chess;
+import functional_chess_model.ChessColor;
+import functional_chess_model.Play;
+import functional_chess_model.Position;
+import functional_chess_model.SearchBoard;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+
+/**
+ * Plays one of the colors of a {@link ChessController} with the
+ * {@link Engine}, listening to the moves of the other player.
+ * <br><br>
+ * The search runs on a {@link SwingWorker}, and its best play is performed
+ * through the controller the same way a move received from an online game
+ * is, so the view is updated as usual. If the game of the controller changed
+ * while searching, like when it's reset or loaded, the play is discarded.
+ * <br><br>
+ * Every search shares the same {@link TranspositionTable}, so the positions
+ * searched on a turn are reused on the next ones.
+ * <br><br>
+ * In timed games, the time of each search is budgeted from the clock of the
+ * computer by a {@link TimeManager}, and the limits given are only used in
+ * untimed games. Either way, a forced play is played right away.
+ * @author Alfonso Gallego
+ */
+public class ComputerPlayer implements MoveListener {
+
+    private final ChessController controller;
+    private final ChessColor color;
+    private final SearchLimits limits;
+    private final TranspositionTable table = new TranspositionTable(Engine.DEFAULT_TABLE_MEGABYTES);
+    private Engine engine;
+    private SwingWorker<SearchResult, Void> worker;
+
+    /**
+     * Creates a computer player and registers it on the controller, playing
+     * right away if it's its turn.
+     * @param controller {@link ChessController} of the game to play.
+     * @param color {@link ChessColor} the computer plays with.
+     * @param limits {@link SearchLimits} of each search of an untimed game.
+     */
+    public ComputerPlayer(ChessController controller, ChessColor color, SearchLimits limits) {
+        this.controller = controller;
+        this.color = color;
+        this.limits = limits;
+        controller.addMoveListener(this);
+        SwingUtilities.invokeLater(this::playIfItsTurn);
+    }
+
+    @Override
+    public void onMovePerformed(Position initPos, Position finPos, String crowningType) {
+        // The controller is still updating the game when it notifies the move.
+        SwingUtilities.invokeLater(this::playIfItsTurn);
+    }
+
+    @Override
+    public void onGameSet(Chess game) {
+        SwingUtilities.invokeLater(this::playIfItsTurn);
+    }
+
+    /**
+     * Starts a search if it's the turn of the computer, stopping the previous
+     * one if it's still running.
+     */
+    private void playIfItsTurn() {
+        if (worker != null && !worker.isDone()) {
+            engine.stop();
+            worker.cancel(false);
+        }
+        Chess game = controller.getGame();
+        if (game.state().hasEnded() || game.activePlayer() != color) return;
+        long key = SearchBoard.of(game).zobristKey();
+        TimeManager time = game.isTimed()
+            ? TimeManager.ofClock(game, controller.secondsLeft(color) * 1000L)
+            : TimeManager.ofLimits(game, limits);
+        Engine searchEngine = new Engine(table);
+        engine = searchEngine;
+        worker = new SwingWorker<>() {
+            @Override
+            protected SearchResult doInBackground() {
+                return searchEngine.search(game, time.limits(), iteration -> {
+                    if (time.shouldStop(iteration)) searchEngine.stop();
+                });
+            }
+
+            @Override
+            protected void done() {
+                if (isCancelled()) return;
+                try {
+                    play(get().bestPlay(), key);
+                } catch (InterruptedException | ExecutionException ex) {
+                    System.err.println("Computer search failed: " + ex.getMessage());
+                }
+            }
+        };
+        worker.execute();
+    }
+
+    /**
+     * Performs the play found for a game, if the controller is still playing
+     * that game.
+     */
+    private void play(Optional<Play> bestPlay, long key) {
+        Chess game = controller.getGame();
+        if (bestPlay.isEmpty() || game.state().hasEnded() || game.activePlayer() != color) return;
+        if (SearchBoard.of(game).zobristKey() != key) return;
+        Play play = bestPlay.get();
+        controller.handleClick(play.initPos().x(), play.initPos().y(), false);
+        controller.handleClick(play.finPos().x(), play.finPos().y(), false,
+            play.pieceCrowned() == null ? null : play.pieceCrowned().getClass().getSimpleName());
+    }
+
+}
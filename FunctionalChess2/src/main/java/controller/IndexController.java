@@ -6,6 +6,7 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import javax.swing.SwingUtilities;
 
+import chess_engine.SearchLimits;
 import controller.online.NetworkController;
 import functional_chess_model.ChessColor;
 import functional_chess_model.GameVariant;
@@ -18,6 +19,12 @@ import view.online.ConnectionLogger;
  */
 public class IndexController implements ActionListener {
 
+    /**
+     * Limits of each search of the computer player in untimed games. In
+     * timed games, it budgets its time from its clock.
+     */
+    private static final SearchLimits COMPUTER_LIMITS = SearchLimits.ofMillis(2000);
+
     private final Index view;
 
     public IndexController() {
@@ -32,7 +39,7 @@ public class IndexController implements ActionListener {
         if (ConfigParameters.VARIANT_ENUM_NAMES.contains(command)) {
             GameType gameType = view.gameTypeSelected();
             ChessController controller = GameVariant.valueOf(command).controller(view.isTimerToggled(), gameType.isOnlineGame(), switch (gameType) {
-                case HOST -> ChessColor.WHITE;
+                case HOST, COMPUTER -> ChessColor.WHITE;
                 case CLIENT -> ChessColor.BLACK;
                 default -> null;
             });
@@ -40,6 +47,7 @@ public class IndexController implements ActionListener {
                 view.dispose();
                 if (gameType == GameType.HOST) new NetworkController(controller, new ConnectionLogger()).startServer();
                 else if (gameType == GameType.CLIENT) new NetworkController(controller, new ConnectionLogger()).startClient();
+                else if (gameType == GameType.COMPUTER) new ComputerPlayer(controller, ChessColor.BLACK, COMPUTER_LIMITS);
             });
             return;
         }
@@ -56,10 +64,11 @@ public class IndexController implements ActionListener {
     public enum GameType {
         HOST,
         CLIENT,
-        LOCAL;
+        LOCAL,
+        COMPUTER;
 
         public boolean isOnlineGame() {
-            return this != LOCAL;
+            return this == HOST || this == CLIENT;
         }
     }
 }
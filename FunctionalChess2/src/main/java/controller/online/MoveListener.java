@@ -1,8 +1,15 @@
 package controller.online;
 
+import functional_chess_model.Chess;
 import functional_chess_model.Position;
 
 public interface MoveListener {
     void onMovePerformed(Position initPos, Position finPos, String crowningType);
-}
 
+    /**
+     * Called when the controller's game is replaced without a move, like
+     * when it's reset or loaded from a file.
+     * @param game New {@link Chess} game of the controller.
+     */
+    default void onGameSet(Chess game) {}
+}
@@ -0,0 +1,347 @@
+package functional_chess_model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable bitboard representation of the pieces of a {@link Chess} game,
+ * storing for each {@link ChessColor} and each {@link PieceType} the set of
+ * squares occupied by them.
+ * <br><br>
+ * Each set of squares is stored as two {@code long} words: a single word is
+ * enough for 8x8 boards, while the 9x9 board of {@link GameVariant#MODERN}
+ * and the 8x10 boards of {@link GameVariant#CAPABLANCA},
+ * {@link GameVariant#GOTHIC} and {@link GameVariant#JANUS} also use the
+ * high word. Squares are indexed row by row, so Position (x, y) is the
+ * square {@code (y-1)*cols + (x-1)}.
+ * <br><br>
+ * Path and attack queries are answered with mask operations over
+ * precomputed tables for the size of the board, without walking the squares
+ * one by one.
+ * @author Alfonso Gallego
+ */
+public final class BitBoard {
+
+    private static final PieceType[] TYPES = PieceType.values();
+    private static final ChessColor[] COLORS = ChessColor.values();
+
+    /**
+     * Index of the first piece type mask in the mask arrays. The masks
+     * before it are the color masks.
+     */
+    private static final int TYPE_OFFSET = COLORS.length;
+
+    /**
+     * Piece types that can leap like a Knight.
+     */
+    private static final PieceType[] KNIGHT_LEAPERS = {PieceType.KNIGHT, PieceType.AMAZON, PieceType.ARCHBISHOP, PieceType.CHANCELLOR};
+    /**
+     * Piece types that can ride in a straight line, like a Rook.
+     */
+    private static final PieceType[] ORTHOGONAL_RIDERS = {PieceType.ROOK, PieceType.QUEEN, PieceType.AMAZON, PieceType.CHANCELLOR};
+    /**
+     * Piece types that can ride in a diagonal, like a Bishop.
+     */
+    private static final PieceType[] DIAGONAL_RIDERS = {PieceType.BISHOP, PieceType.QUEEN, PieceType.AMAZON, PieceType.ARCHBISHOP};
+    private static final PieceType[] KINGS = {PieceType.KING};
+    private static final PieceType[] PAWNS = {PieceType.PAWN};
+
+    private final BoardGeometry geometry;
+    /**
+     * Low and high words of the masks of each color, indexed by
+     * {@link ChessColor#ordinal()}, followed by the masks of each piece type,
+     * indexed by {@code TYPE_OFFSET + }{@link PieceType#ordinal()}.
+     */
+    private final long[] low;
+    private final long[] high;
+
+    private BitBoard(BoardGeometry geometry, long[] low, long[] high) {
+        this.geometry = geometry;
+        this.low = low;
+        this.high = high;
+    }
+
+    /**
+     * Static factory method to create the bitboard of a list of pieces.
+     * @param pieces {@link Piece}s on the board.
+     * @param rows Number of rows of the board.
+     * @param cols Number of columns of the board.
+     * @return A new BitBoard with each piece added to the masks of its color
+     * and type.
+     * @throws IllegalArgumentException If the board has more than 128
+     * squares, or if a piece is outside the board.
+     */
+    public static BitBoard of(List<Piece> pieces, int rows, int cols) {
+        BitBoard bitBoard = new BitBoard(BoardGeometry.of(rows, cols), new long[TYPE_OFFSET + TYPES.length], new long[TYPE_OFFSET + TYPES.length]);
+        for (Piece piece : pieces) bitBoard.set(piece);
+        return bitBoard;
+    }
+
+    /**
+     * Creates a new BitBoard reflecting the replacement of some pieces by
+     * others.
+     * @param removed {@link Piece}s whose squares are emptied. Null elements
+     * are ignored.
+     * @param added {@link Piece}s placed on their squares afterwards.
+     * @return A new BitBoard with the updated masks.
+     */
+    BitBoard replace(Piece[] removed, Piece[] added) {
+        BitBoard bitBoard = new BitBoard(geometry, low.clone(), high.clone());
+        for (Piece piece : removed) {
+            if (piece != null) bitBoard.clear(geometry.index(piece.getPosition()));
+        }
+        for (Piece piece : added) bitBoard.set(piece);
+        return bitBoard;
+    }
+
+    private void set(Piece piece) {
+        Position pos = piece.getPosition();
+        if (!geometry.isInside(pos.x(), pos.y())) throw new IllegalArgumentException(piece + " is placed at " + pos + ", outside the chess board");
+        int square = geometry.index(pos);
+        int colorIndex = piece.getColor().ordinal();
+        int typeIndex = TYPE_OFFSET + PieceType.of(piece).ordinal();
+        if (square < 64) {
+            low[colorIndex] |= 1L << square;
+            low[typeIndex] |= 1L << square;
+        } else {
+            high[colorIndex] |= 1L << (square - 64);
+            high[typeIndex] |= 1L << (square - 64);
+        }
+    }
+
+    private void clear(int square) {
+        if (square < 64) {
+            for (int i = 0; i < low.length; i++) low[i] &= ~(1L << square);
+        } else {
+            for (int i = 0; i < high.length; i++) high[i] &= ~(1L << (square - 64));
+        }
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="Getters and conversion">
+
+    public int rows() {return geometry.rows;}
+    public int cols() {return geometry.cols;}
+
+    /**
+     * Getter for the precomputed tables of the board.
+     * @return The {@link BoardGeometry} shared by every board of this size.
+     */
+    BoardGeometry geometry() {return geometry;}
+
+    /**
+     * Checks whether a square is occupied.
+     * @param pos {@link Position} to check.
+     * @return True if there's a piece of any color on that position, false if
+     * it's empty or outside the board.
+     */
+    public boolean isOccupied(Position pos) {
+        return contains(pos, low[0] | low[1], high[0] | high[1]);
+    }
+
+    /**
+     * Checks whether a square is occupied by a piece of the given color.
+     * @param pos {@link Position} to check.
+     * @param color {@link ChessColor} to match.
+     * @return True if there's a piece of that color on that position.
+     */
+    public boolean isOccupied(Position pos, ChessColor color) {
+        return contains(pos, low[color.ordinal()], high[color.ordinal()]);
+    }
+
+    /**
+     * Checks whether a square is occupied by a piece of the given type.
+     * @param pos {@link Position} to check.
+     * @param type {@link PieceType} to match.
+     * @return True if there's a piece of that type on that position.
+     */
+    public boolean isOccupied(Position pos, PieceType type) {
+        return contains(pos, low[TYPE_OFFSET + type.ordinal()], high[TYPE_OFFSET + type.ordinal()]);
+    }
+
+    /**
+     * Counts the pieces of a color and type.
+     * @param color {@link ChessColor} of the pieces.
+     * @param type {@link PieceType} of the pieces.
+     * @return The number of squares present in both the color and type masks.
+     */
+    public int count(ChessColor color, PieceType type) {
+        int t = TYPE_OFFSET + type.ordinal();
+        int c = color.ordinal();
+        return Long.bitCount(low[c] & low[t]) + Long.bitCount(high[c] & high[t]);
+    }
+
+    /**
+     * Gets the positions of the pieces of a color and type.
+     * @param color {@link ChessColor} of the pieces.
+     * @param type {@link PieceType} of the pieces.
+     * @return A list of the positions in both masks, in square index order.
+     */
+    public List<Position> positionsOf(ChessColor color, PieceType type) {
+        int t = TYPE_OFFSET + type.ordinal();
+        int c = color.ordinal();
+        List<Position> positions = new ArrayList<>();
+        for (long word = low[c] & low[t]; word != 0; word &= word - 1) {
+            positions.add(position(Long.numberOfTrailingZeros(word)));
+        }
+        for (long word = high[c] & high[t]; word != 0; word &= word - 1) {
+            positions.add(position(64 + Long.numberOfTrailingZeros(word)));
+        }
+        return positions;
+    }
+
+    /**
+     * Converts the bitboard back to a list of pieces.
+     * @return An immutable list with one {@link Piece} for each occupied
+     * square, built with the constructor of its {@link PieceType}, sorted by
+     * color, then type and then square index.
+     */
+    public List<Piece> toPieces() {
+        List<Piece> pieces = new ArrayList<>();
+        for (ChessColor color : COLORS) {
+            for (PieceType type : TYPES) {
+                for (Position pos : positionsOf(color, type)) pieces.add(type.constructor(pos, color));
+            }
+        }
+        return List.copyOf(pieces);
+    }
+
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Path and attack queries">
+
+    /**
+     * Checks the collision along a path following a Rook or Bishop-like
+     * movement, using the precomputed masks of the squares between each pair
+     * of squares.
+     * @param initPos Initial {@link Position} of the movement.
+     * @param finPos Final {@link Position} of the movement.
+     * @return False if the movement isn't on a straight line or diagonal, or
+     * if any of its positions is outside the board. Otherwise, true if there's
+     * no piece between both positions, both exclusive.
+     */
+    public boolean isPathClear(Position initPos, Position finPos) {
+        if (!geometry.isInside(initPos.x(), initPos.y()) || !geometry.isInside(finPos.x(), finPos.y())) return false;
+        if (!Chess.isRookLikePath(initPos, finPos) && !Chess.isBishopLikePath(initPos, finPos)) return false;
+        return isPathClear(geometry.index(initPos), geometry.index(finPos));
+    }
+
+    boolean isInside(int x, int y) {
+        return geometry.isInside(x, y);
+    }
+
+    int index(int x, int y) {
+        return geometry.index(x, y);
+    }
+
+    /**
+     * Checks whether the squares between two aligned squares are empty.
+     * @param from Index of the initial square.
+     * @param to Index of the final square.
+     * @return True if the mask of squares between them has no occupied square.
+     */
+    boolean isPathClear(int from, int to) {
+        int pair = from * geometry.squares + to;
+        return ((low[0] | low[1]) & geometry.betweenLow[pair]) == 0
+            && ((high[0] | high[1]) & geometry.betweenHigh[pair]) == 0;
+    }
+
+    /**
+     * Checks whether a square is attacked by any piece of the given color,
+     * ie, if any of them could legally capture a piece on it, ignoring if that
+     * capture would cause a check for its controller.
+     * <br><br>
+     * Leaps of Knights, Kings and the Knight component of compound pieces,
+     * and captures of {@link functional_chess_model.Pieces.Pawn}s, are checked
+     * with a single mask operation each. Rook and Bishop-like riders are
+     * checked by testing the squares between them and the target square.
+     * {@link functional_chess_model.Pieces.Nightrider}s aren't covered by
+     * this method.
+     * @param pos {@link Position} of the target square.
+     * @param attacker {@link ChessColor} of the attacking pieces.
+     * @return True if the square is attacked, false otherwise or if it's
+     * outside the board.
+     */
+    public boolean isAttacked(Position pos, ChessColor attacker) {
+        if (!geometry.isInside(pos.x(), pos.y())) return false;
+        int target = geometry.index(pos);
+        int c = attacker.ordinal();
+
+        if ((geometry.knightLow[target] & mask(low, c, KNIGHT_LEAPERS)) != 0 || (geometry.knightHigh[target] & mask(high, c, KNIGHT_LEAPERS)) != 0) return true;
+        if ((geometry.kingLow[target] & mask(low, c, KINGS)) != 0 || (geometry.kingHigh[target] & mask(high, c, KINGS)) != 0) return true;
+        if ((geometry.pawnAttackersLow[c][target] & mask(low, c, PAWNS)) != 0 || (geometry.pawnAttackersHigh[c][target] & mask(high, c, PAWNS)) != 0) return true;
+
+        return isRiderAttacking(target, true, mask(low, c, ORTHOGONAL_RIDERS), mask(high, c, ORTHOGONAL_RIDERS))
+            || isRiderAttacking(target, false, mask(low, c, DIAGONAL_RIDERS), mask(high, c, DIAGONAL_RIDERS));
+    }
+
+    /**
+     * Checks whether any of the given riders reaches the target square.
+     * @param target Index of the target square.
+     * @param orthogonal True to check Rook-like riders, false for Bishop-like.
+     * @param ridersLow Low word of the squares of the riders.
+     * @param ridersHigh High word of the squares of the riders.
+     * @return True if any rider is aligned with the target in the appropriate
+     * way and the squares between them are empty.
+     */
+    private boolean isRiderAttacking(int target, boolean orthogonal, long ridersLow, long ridersHigh) {
+        for (long word = ridersLow; word != 0; word &= word - 1) {
+            if (isRiderAttacking(Long.numberOfTrailingZeros(word), target, orthogonal)) return true;
+        }
+        for (long word = ridersHigh; word != 0; word &= word - 1) {
+            if (isRiderAttacking(64 + Long.numberOfTrailingZeros(word), target, orthogonal)) return true;
+        }
+        return false;
+    }
+
+    private boolean isRiderAttacking(int from, int target, boolean orthogonal) {
+        if (from == target) return false;
+        int xMovement = geometry.x(target) - geometry.x(from);
+        int yMovement = geometry.y(target) - geometry.y(from);
+        boolean aligned = orthogonal ? Chess.isRookLikePath(xMovement, yMovement) : Chess.isBishopLikePath(xMovement, yMovement);
+        return aligned && isPathClear(from, target);
+    }
+
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Mask auxiliary methods">
+
+    /**
+     * Gets a word of the set of squares occupied by pieces of a color and any
+     * of the given types.
+     * @param words Low or high words of the masks.
+     * @param colorIndex Ordinal of the {@link ChessColor} of the pieces.
+     * @param types {@link PieceType}s of the pieces.
+     * @return The union of the type masks, intersected with the color mask.
+     */
+    private static long mask(long[] words, int colorIndex, PieceType[] types) {
+        long mask = 0;
+        for (PieceType type : types) mask |= words[TYPE_OFFSET + type.ordinal()];
+        return mask & words[colorIndex];
+    }
+
+    private boolean contains(Position pos, long maskLow, long maskHigh) {
+        if (!geometry.isInside(pos.x(), pos.y())) return false;
+        int square = geometry.index(pos);
+        return square < 64 ? (maskLow & (1L << square)) != 0 : (maskHigh & (1L << (square - 64))) != 0;
+    }
+
+    private Position position(int square) {
+        return Position.of(geometry.x(square), geometry.y(square));
+    }
+
+    //</editor-fold>
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof BitBoard other)) return false;
+        return geometry == other.geometry && Arrays.equals(low, other.low) && Arrays.equals(high, other.high);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(low) + Arrays.hashCode(high);
+    }
+
+}
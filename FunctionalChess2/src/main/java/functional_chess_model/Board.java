@@ -0,0 +1,261 @@
+package functional_chess_model;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Immutable {@link List} of the {@link Piece}s of a {@link Chess} game that
+ * also keeps a square-indexed array (a mailbox) sized from the rows and
+ * columns of its {@link GameVariant}, so that finding the piece present on a
+ * given square takes constant time instead of a scan over every piece.
+ * <br><br>
+ * A Board is built once per state of the game by the compact constructor of
+ * {@link Chess}, and each update of the pieces derives a new Board from the
+ * previous one instead of rebuilding it. Its iteration order, equality and
+ * hash code are those of the list of pieces it was built from, and it's
+ * serialized as a plain immutable list, so it doesn't change the saved
+ * games format.
+ * @author Alfonso Gallego
+ */
+final class Board extends AbstractList<Piece> implements RandomAccess, Serializable {
+
+    private final int rows;
+    private final int cols;
+    /**
+     * Pieces of the board, in the order they were added.
+     */
+    private final Piece[] pieces;
+    /**
+     * Mailbox mapping the index of each square to the piece on it, or
+     * {@code null} if it's empty.
+     */
+    private final Piece[] squares;
+    /**
+     * Bitboard masks of the same pieces, kept in sync with the mailbox.
+     */
+    private final BitBoard bitBoard;
+    /**
+     * Zobrist keys of the variant of the game.
+     */
+    private final ZobristKeys zobristKeys;
+    /**
+     * XOR of the Zobrist keys of every piece on its square, updated with
+     * each replacement of pieces.
+     */
+    private final long pieceKey;
+    /**
+     * Checks and pins of each color, indexed by {@link ChessColor#ordinal()}
+     * and computed lazily.
+     */
+    private final transient KingSafety[] kingSafety = new KingSafety[ChessColor.values().length];
+    /**
+     * Data derived from the last state of the game this Board was asked
+     * about, computed lazily.
+     */
+    private transient volatile DerivedData derivedData;
+
+    private Board(int rows, int cols, Piece[] pieces, Piece[] squares, BitBoard bitBoard, ZobristKeys zobristKeys, long pieceKey) {
+        this.rows = rows;
+        this.cols = cols;
+        this.pieces = pieces;
+        this.squares = squares;
+        this.bitBoard = bitBoard;
+        this.zobristKeys = zobristKeys;
+        this.pieceKey = pieceKey;
+    }
+
+    /**
+     * Static factory method to create the Board of a game from its pieces.
+     * @param pieces {@link List} of {@link Piece}s on the board.
+     * @param variant {@link GameVariant} of the game, determining the size
+     * of the board.
+     * @return {@code pieces} itself if it already is a Board of the same
+     * variant, or a new Board storing them otherwise.
+     * @throws IllegalArgumentException If any of the pieces is placed outside
+     * the board.
+     */
+    static Board of(List<Piece> pieces, GameVariant variant) {
+        ZobristKeys zobristKeys = ZobristKeys.of(variant);
+        if (pieces instanceof Board board && board.zobristKeys == zobristKeys) return board;
+        Piece[] piecesArray = pieces.toArray(Piece[]::new);
+        Piece[] squares = new Piece[variant.rows() * variant.cols()];
+        long pieceKey = 0;
+        for (Piece piece : piecesArray) {
+            Objects.requireNonNull(piece);
+            Position pos = piece.getPosition();
+            if (!variant.isInsideBoard(pos)) throw new IllegalArgumentException(piece + " is placed at " + pos + ", outside the chess board");
+            squares[index(pos, variant.cols())] = piece;
+            pieceKey ^= zobristKeys.piece(piece, variant.cols());
+        }
+        return new Board(variant.rows(), variant.cols(), piecesArray, squares, BitBoard.of(Arrays.asList(piecesArray), variant.rows(), variant.cols()), zobristKeys, pieceKey);
+    }
+
+    /**
+     * Gets the piece present at the given position.
+     * @param pos {@link Position} to look at.
+     * @return The {@link Piece} on that position, or {@code null} if it's
+     * empty or outside the board.
+     */
+    Piece pieceAt(Position pos) {
+        return isInside(pos, rows, cols) ? squares[index(pos, cols)] : null;
+    }
+
+    /**
+     * Gets the piece present at the given coordinates.
+     * @param x X coordinate of the square.
+     * @param y Y coordinate of the square.
+     * @return The {@link Piece} on that square, or {@code null} if it's empty
+     * or outside the board.
+     */
+    Piece pieceAt(int x, int y) {
+        return x >= 1 && x <= cols && y >= 1 && y <= rows ? squares[(y - 1) * cols + (x - 1)] : null;
+    }
+
+    /**
+     * Gets the piece present on the given square.
+     * @param square Index of the square, as in {@link BoardGeometry}.
+     * @return The {@link Piece} on that square, or {@code null} if it's empty.
+     */
+    Piece pieceAt(int square) {
+        return squares[square];
+    }
+
+    /**
+     * Gets the precomputed tables of the board.
+     * @return The {@link BoardGeometry} shared by every board of this size.
+     */
+    BoardGeometry geometry() {
+        return bitBoard.geometry();
+    }
+
+    /**
+     * Gets the checks and pins against the royal piece of a color, computing
+     * them the first time they're requested for this Board.
+     * @param color {@link ChessColor} of the royal piece.
+     * @return The {@link KingSafety} of that color on this Board.
+     */
+    KingSafety kingSafety(ChessColor color) {
+        // KingSafety is immutable, so a racy initialization at worst computes it twice.
+        KingSafety safety = kingSafety[color.ordinal()];
+        if (safety == null) {
+            safety = KingSafety.of(this, BoardGeometry.of(rows, cols), color);
+            kingSafety[color.ordinal()] = safety;
+        }
+        return safety;
+    }
+
+    /**
+     * Gets the data derived from a state of the game with these pieces.
+     * @param castling {@link CastlingRights} of the state.
+     * @param history {@link PlayHistory} of the state.
+     * @return The {@link DerivedData} of the last state asked about if it
+     * has the same castling availabilities and play history, or a new empty
+     * one for this state otherwise, which replaces it.
+     */
+    DerivedData derivedData(CastlingRights castling, PlayHistory history) {
+        DerivedData data = derivedData;
+        if (data == null || !data.isOf(castling, history)) {
+            data = new DerivedData(castling, history, squares.length);
+            derivedData = data;
+        }
+        return data;
+    }
+
+    /**
+     * Gets the part of the Zobrist key of the position given by the pieces.
+     * @return The XOR of the keys of every piece on its square.
+     */
+    long pieceKey() {
+        return pieceKey;
+    }
+
+    /**
+     * Gets the Zobrist keys this Board is hashed with.
+     * @return The {@link ZobristKeys} of the variant of the game.
+     */
+    ZobristKeys zobristKeys() {
+        return zobristKeys;
+    }
+
+    /**
+     * Gets the bitboard representation of the pieces.
+     * @return The {@link BitBoard} kept alongside the mailbox.
+     */
+    BitBoard bitBoard() {
+        return bitBoard;
+    }
+
+    /**
+     * Creates a new Board reflecting the replacement of some pieces by others.
+     * @param removed {@link Piece}s to remove. Null elements are ignored.
+     * @param added {@link Piece}s to add, after the removed ones.
+     * @return A new Board where each removed piece that is on its square is
+     * taken out of the list and its square is emptied, then each added piece
+     * is appended to the list and placed on its square. Removed pieces that
+     * aren't on the board are ignored, so the list, the squares, the
+     * bitboard and the piece key stay in agreement.
+     */
+    Board replace(Piece[] removed, Piece[] added) {
+        Piece[] updatedPieces = Arrays.copyOf(pieces, pieces.length + added.length);
+        Piece[] updatedSquares = squares.clone();
+        Piece[] takenOut = new Piece[removed.length];
+        int size = pieces.length;
+        long updatedPieceKey = pieceKey;
+        for (int r = 0; r < removed.length; r++) {
+            Piece piece = removed[r];
+            if (piece == null || !isInside(piece.getPosition(), rows, cols)) continue;
+            int square = index(piece.getPosition(), cols);
+            if (!piece.equals(updatedSquares[square])) continue;
+            for (int i = 0; i < size; i++) {
+                if (updatedPieces[i].equals(piece)) {
+                    System.arraycopy(updatedPieces, i + 1, updatedPieces, i, size - i - 1);
+                    size--;
+                    break;
+                }
+            }
+            updatedSquares[square] = null;
+            updatedPieceKey ^= zobristKeys.piece(piece, cols);
+            takenOut[r] = piece;
+        }
+        for (Piece piece : added) {
+            if (!isInside(piece.getPosition(), rows, cols)) throw new IllegalArgumentException(piece + " is placed at " + piece.getPosition() + ", outside the chess board");
+            updatedPieces[size++] = piece;
+            updatedSquares[index(piece.getPosition(), cols)] = piece;
+            updatedPieceKey ^= zobristKeys.piece(piece, cols);
+        }
+        return new Board(rows, cols, Arrays.copyOf(updatedPieces, size), updatedSquares, bitBoard.replace(takenOut, added), zobristKeys, updatedPieceKey);
+    }
+
+    private static boolean isInside(Position pos, int rows, int cols) {
+        return pos.x() >= 1 && pos.x() <= cols && pos.y() >= 1 && pos.y() <= rows;
+    }
+
+    private static int index(Position pos, int cols) {
+        return (pos.y() - 1) * cols + (pos.x() - 1);
+    }
+
+    @Override
+    public Piece get(int index) {
+        Objects.checkIndex(index, pieces.length);
+        return pieces[index];
+    }
+
+    @Override
+    public int size() {
+        return pieces.length;
+    }
+
+    /**
+     * Serializes the Board as a plain immutable list of its pieces, the
+     * mailbox being rebuilt by {@link Chess} when it's read back.
+     * @return An immutable copy of the list of pieces.
+     */
+    private Object writeReplace() {
+        return List.copyOf(this);
+    }
+
+}
@@ -0,0 +1,268 @@
+package functional_chess_model;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Precomputed tables describing the squares of a board of a given size,
+ * shared by every game played on boards of that size.
+ * <br><br>
+ * Squares are indexed from 0, row by row starting from row 1, so the
+ * square of {@link Position} (x, y) has index {@code (y-1)*cols + (x-1)}.
+ * Sets of squares are stored as two {@code long} words, the low word
+ * holding the squares 0 to 63 and the high one the squares 64 to 127, which
+ * is enough for every {@link GameVariant}: 8x8, 9x9 and 8x10 boards.
+ * @author Alfonso Gallego
+ */
+final class BoardGeometry {
+
+    /**
+     * Maximum number of squares a board can have to be represented with
+     * two-word square sets.
+     */
+    static final int MAX_SQUARES = 128;
+
+    private static final Map<Integer, BoardGeometry> CACHE = new ConcurrentHashMap<>();
+    /**
+     * Index of each step of {@link MovementPattern#KING} among the lines of a
+     * Queen, indexed by {@code (yStep + 1) * 3 + (xStep + 1)}, or -1 for the
+     * null step.
+     */
+    private static final int[] QUEEN_DIRECTIONS = new int[9];
+    /**
+     * Index of each step of {@link MovementPattern#KNIGHT} among the lines of
+     * a Nightrider, indexed by {@code (yStep + 2) * 5 + (xStep + 2)}, or -1
+     * for steps that aren't Knight-like leaps.
+     */
+    private static final int[] KNIGHT_DIRECTIONS = new int[25];
+
+    static {
+        Arrays.fill(QUEEN_DIRECTIONS, -1);
+        for (int i = 0; i < MovementPattern.KING.size(); i++) {
+            QUEEN_DIRECTIONS[(MovementPattern.KING.yStep(i) + 1) * 3 + (MovementPattern.KING.xStep(i) + 1)] = i;
+        }
+        Arrays.fill(KNIGHT_DIRECTIONS, -1);
+        for (int i = 0; i < MovementPattern.KNIGHT.size(); i++) {
+            KNIGHT_DIRECTIONS[(MovementPattern.KNIGHT.yStep(i) + 2) * 5 + (MovementPattern.KNIGHT.xStep(i) + 2)] = i;
+        }
+    }
+
+    final int rows;
+    final int cols;
+    final int squares;
+
+    /**
+     * Squares strictly between each pair of squares on the same row, column
+     * or diagonal, indexed by {@code from * squares + to}. Empty for pairs
+     * that aren't aligned that way.
+     */
+    final long[] betweenLow;
+    final long[] betweenHigh;
+
+    /**
+     * Squares a Knight-like leap away from each square.
+     */
+    final long[] knightLow;
+    final long[] knightHigh;
+
+    /**
+     * Squares adjacent to each square.
+     */
+    final long[] kingLow;
+    final long[] kingHigh;
+
+    /**
+     * For each {@link ChessColor} ordinal and square, squares from which a
+     * {@link functional_chess_model.Pieces.Pawn} of that color would capture
+     * on that square.
+     */
+    final long[][] pawnAttackersLow;
+    final long[][] pawnAttackersHigh;
+
+    /**
+     * Squares met going out of each square along each of the lines of a
+     * Queen, in order until the edge of the board, indexed by
+     * {@code square * 8 + direction} with the directions of the steps of
+     * {@link MovementPattern#KING}. Rooks and Bishops ride half of them.
+     */
+    private final int[][] queenRays;
+    /**
+     * Squares met going out of each square along each of the lines of a
+     * Nightrider, in order until the edge of the board, indexed by
+     * {@code square * 8 + direction} with the directions of the steps of
+     * {@link MovementPattern#KNIGHT}.
+     */
+    private final int[][] knightRays;
+
+    private BoardGeometry(int rows, int cols) {
+        if (rows * cols > MAX_SQUARES) throw new IllegalArgumentException("Boards of " + rows + "x" + cols + " squares are too big to be represented");
+        this.rows = rows;
+        this.cols = cols;
+        this.squares = rows * cols;
+        this.betweenLow = new long[squares * squares];
+        this.betweenHigh = new long[squares * squares];
+        this.knightLow = new long[squares];
+        this.knightHigh = new long[squares];
+        this.kingLow = new long[squares];
+        this.kingHigh = new long[squares];
+        this.pawnAttackersLow = new long[ChessColor.values().length][squares];
+        this.pawnAttackersHigh = new long[ChessColor.values().length][squares];
+
+        for (int from = 0; from < squares; from++) {
+            for (int to = 0; to < squares; to++) {
+                int xMovement = x(to) - x(from);
+                int yMovement = y(to) - y(from);
+                if (from != to && (Chess.isRookLikePath(xMovement, yMovement) || Chess.isBishopLikePath(xMovement, yMovement))) {
+                    int xStep = Integer.compare(xMovement, 0);
+                    int yStep = Integer.compare(yMovement, 0);
+                    for (int n = 1; n < Math.max(Math.abs(xMovement), Math.abs(yMovement)); n++) {
+                        int square = index(x(from) + n * xStep, y(from) + n * yStep);
+                        if (square < 64) betweenLow[from * squares + to] |= 1L << square;
+                        else betweenHigh[from * squares + to] |= 1L << (square - 64);
+                    }
+                }
+                if (Chess.isKnightLikePath(xMovement, yMovement)) setBit(knightLow, knightHigh, from, to);
+                if (from != to && Math.abs(xMovement) <= 1 && Math.abs(yMovement) <= 1) setBit(kingLow, kingHigh, from, to);
+                for (ChessColor color : ChessColor.values()) {
+                    // A pawn on "to" captures on "from" if it's one column aside and one row ahead of it.
+                    if (Math.abs(xMovement) == 1 && -yMovement == color.yDirection()) {
+                        setBit(pawnAttackersLow[color.ordinal()], pawnAttackersHigh[color.ordinal()], from, to);
+                    }
+                }
+            }
+        }
+        this.queenRays = rays(MovementPattern.KING);
+        this.knightRays = rays(MovementPattern.KNIGHT);
+    }
+
+    /**
+     * Static factory method to get the geometry of a board.
+     * @param rows Number of rows of the board.
+     * @param cols Number of columns of the board.
+     * @return The shared geometry for boards of that size, computed the first
+     * time it's requested.
+     */
+    static BoardGeometry of(int rows, int cols) {
+        return CACHE.computeIfAbsent(rows * 1000 + cols, key -> new BoardGeometry(rows, cols));
+    }
+
+    /**
+     * Gets the geometry of the board of the given variant.
+     * @param variant {@link GameVariant} whose board size is used.
+     * @return The shared geometry for boards of that size.
+     */
+    static BoardGeometry of(GameVariant variant) {
+        return of(variant.rows(), variant.cols());
+    }
+
+    int index(int x, int y) {
+        return (y - 1) * cols + (x - 1);
+    }
+
+    int index(Position pos) {
+        return index(pos.x(), pos.y());
+    }
+
+    int x(int square) {
+        return square % cols + 1;
+    }
+
+    int y(int square) {
+        return square / cols + 1;
+    }
+
+    boolean isInside(int x, int y) {
+        return x >= 1 && x <= cols && y >= 1 && y <= rows;
+    }
+
+    /**
+     * Gets the squares along a line of a Queen.
+     * @param square Index of the square the line goes out of.
+     * @param direction Index of the step of {@link MovementPattern#KING}
+     * followed, as returned by {@link #queenDirection(int, int)}.
+     * @return The shared array of the squares of that line, from the nearest
+     * to the edge of the board. It must not be modified.
+     */
+    int[] queenRay(int square, int direction) {
+        return queenRays[square * MovementPattern.KING.size() + direction];
+    }
+
+    /**
+     * Gets the squares along a line of a Nightrider.
+     * @param square Index of the square the line goes out of.
+     * @param direction Index of the step of {@link MovementPattern#KNIGHT}
+     * followed, as returned by {@link #knightDirection(int, int)}.
+     * @return The shared array of the squares of that line, from the nearest
+     * to the edge of the board. It must not be modified.
+     */
+    int[] knightRay(int square, int direction) {
+        return knightRays[square * MovementPattern.KNIGHT.size() + direction];
+    }
+
+    /**
+     * Gets the squares along the line of a step of a pattern.
+     * @param pattern {@link MovementPattern} ridden.
+     * @param square Index of the square the line goes out of.
+     * @param step Index of the step of {@code pattern} followed.
+     * @return The shared array of the squares of that line, from the nearest
+     * to the edge of the board. It must not be modified.
+     */
+    int[] ray(MovementPattern pattern, int square, int step) {
+        if (pattern == MovementPattern.KNIGHT) return knightRay(square, step);
+        return queenRay(square, queenDirection(pattern.xStep(step), pattern.yStep(step)));
+    }
+
+    /**
+     * Gets the direction of a step along the lines of a Queen.
+     * @param xStep X coordinate of the step, between -1 and 1.
+     * @param yStep Y coordinate of the step, between -1 and 1.
+     * @return The index of that step in {@link MovementPattern#KING}, or -1
+     * if it's the null step.
+     */
+    static int queenDirection(int xStep, int yStep) {
+        return QUEEN_DIRECTIONS[(yStep + 1) * 3 + (xStep + 1)];
+    }
+
+    /**
+     * Gets the direction of a step along the lines of a Nightrider.
+     * @param xStep X coordinate of the step, between -2 and 2.
+     * @param yStep Y coordinate of the step, between -2 and 2.
+     * @return The index of that step in {@link MovementPattern#KNIGHT}, or -1
+     * if it isn't a Knight-like leap.
+     */
+    static int knightDirection(int xStep, int yStep) {
+        return KNIGHT_DIRECTIONS[(yStep + 2) * 5 + (xStep + 2)];
+    }
+
+    /**
+     * Walks every line of a pattern out of every square.
+     * @param pattern {@link MovementPattern} whose steps are repeated.
+     * @return The squares of each line, indexed by
+     * {@code square * pattern.size() + step}.
+     */
+    private int[][] rays(MovementPattern pattern) {
+        int[][] rays = new int[squares * pattern.size()][];
+        int[] ray = new int[Math.max(rows, cols)];
+        for (int square = 0; square < squares; square++) {
+            for (int i = 0; i < pattern.size(); i++) {
+                int length = 0;
+                int x = x(square) + pattern.xStep(i);
+                int y = y(square) + pattern.yStep(i);
+                while (isInside(x, y)) {
+                    ray[length++] = index(x, y);
+                    x += pattern.xStep(i);
+                    y += pattern.yStep(i);
+                }
+                rays[square * pattern.size() + i] = Arrays.copyOf(ray, length);
+            }
+        }
+        return rays;
+    }
+
+    private static void setBit(long[] low, long[] high, int index, int square) {
+        if (square < 64) low[index] |= 1L << square;
+        else high[index] |= 1L << (square - 64);
+    }
+
+}
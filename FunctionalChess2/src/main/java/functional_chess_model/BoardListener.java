@@ -0,0 +1,33 @@
+package functional_chess_model;
+
+/**
+ * Listener of the pieces added to and removed from a {@link SearchBoard}, to
+ * keep values computed from its pieces up to date without computing them
+ * again from the whole board after each movement.
+ * <br><br>
+ * A movement removes the moved piece from its initial square and adds it to
+ * its final one, crowned if it is, removes the piece it captures, and, for
+ * castling, also moves the Rook. Taking it back reverts those changes, so a
+ * listener that adds on one and subtracts on the other is back to its value
+ * before the movement.
+ * @author Alfonso Gallego
+ */
+public interface BoardListener {
+
+    /**
+     * Called when a piece is placed on a square.
+     * @param color {@link ChessColor} of the piece.
+     * @param type {@link PieceType} of the piece.
+     * @param square Index of the square, as in {@link SearchBoard}.
+     */
+    void pieceAdded(ChessColor color, PieceType type, int square);
+
+    /**
+     * Called when a piece is taken off a square.
+     * @param color {@link ChessColor} of the piece.
+     * @param type {@link PieceType} of the piece.
+     * @param square Index of the square, as in {@link SearchBoard}.
+     */
+    void pieceRemoved(ChessColor color, PieceType type, int square);
+
+}
@@ -0,0 +1,151 @@
+package functional_chess_model;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable {@link Map} from each {@link ChessColor} to the availability of
+ * each {@link CastlingType} for it, stored as a bitmask with one bit per color
+ * and castling type.
+ * <br><br>
+ * There are only as many different CastlingRights as combinations of bits, so
+ * each of them is built once and shared: checking an availability is a bit
+ * test, and a movement that doesn't lose any availability keeps the very same
+ * instance. It reads like the nested maps {@link Chess} used to store, which
+ * are still what it's serialized as, so it doesn't change the saved games
+ * format.
+ * @author Alfonso Gallego
+ */
+final class CastlingRights extends AbstractMap<ChessColor, Map<CastlingType, Boolean>> implements Serializable {
+
+    private static final ChessColor[] COLORS = ChessColor.values();
+    private static final CastlingType[] TYPES = CastlingType.values();
+    /**
+     * Bitmask with every castling available.
+     */
+    static final int ALL = (1 << (COLORS.length * TYPES.length)) - 1;
+    private static final CastlingRights[] INSTANCES = new CastlingRights[ALL + 1];
+
+    static {
+        for (int bits = 0; bits <= ALL; bits++) INSTANCES[bits] = new CastlingRights(bits);
+    }
+
+    private final int bits;
+    /**
+     * Nested immutable maps with the same availabilities.
+     */
+    private final transient Map<ChessColor, Map<CastlingType, Boolean>> view;
+
+    private CastlingRights(int bits) {
+        this.bits = bits;
+        Map<ChessColor, Map<CastlingType, Boolean>> view = new EnumMap<>(ChessColor.class);
+        for (ChessColor color : COLORS) {
+            Map<CastlingType, Boolean> castlingForColor = new EnumMap<>(CastlingType.class);
+            for (CastlingType type : TYPES) castlingForColor.put(type, (bits & bit(color, type)) != 0);
+            view.put(color, Map.copyOf(castlingForColor));
+        }
+        this.view = Map.copyOf(view);
+    }
+
+    /**
+     * Gets the CastlingRights with the given bits set.
+     * @param bits Bitmask of the availabilities, as in {@link #bit}.
+     * @return The shared CastlingRights with those bits.
+     */
+    static CastlingRights of(int bits) {
+        return INSTANCES[bits & ALL];
+    }
+
+    /**
+     * Gets the CastlingRights with the same availabilities as a map.
+     * @param castling {@link Map} mapping each {@link ChessColor} to another
+     * map mapping each {@link CastlingType} to its availability. Missing
+     * entries are taken as unavailable.
+     * @return {@code castling} itself if it already is a CastlingRights, or
+     * the shared one with the same availabilities otherwise.
+     */
+    static CastlingRights of(Map<ChessColor, Map<CastlingType, Boolean>> castling) {
+        if (castling instanceof CastlingRights rights) return rights;
+        int bits = 0;
+        for (ChessColor color : COLORS) {
+            Map<CastlingType, Boolean> castlingForColor = castling.get(color);
+            if (castlingForColor == null) continue;
+            for (CastlingType type : TYPES) {
+                if (Boolean.TRUE.equals(castlingForColor.get(type))) bits |= bit(color, type);
+            }
+        }
+        return of(bits);
+    }
+
+    /**
+     * Gets the bit of a castling availability.
+     * @param color {@link ChessColor} of the player.
+     * @param type {@link CastlingType} of the castling.
+     * @return The bit standing for that availability in the bitmask.
+     */
+    static int bit(ChessColor color, CastlingType type) {
+        return 1 << (color.ordinal() * TYPES.length + type.ordinal());
+    }
+
+    /**
+     * Gets the bits of both castling types of a color.
+     * @param color {@link ChessColor} of the player.
+     * @return The bitmask with every availability of that player.
+     */
+    static int bits(ChessColor color) {
+        int bits = 0;
+        for (CastlingType type : TYPES) bits |= bit(color, type);
+        return bits;
+    }
+
+    /**
+     * Getter for the bitmask.
+     * @return The bits of the availabilities, as in {@link #bit}.
+     */
+    int bits() {
+        return bits;
+    }
+
+    /**
+     * Checks a castling availability.
+     * @param color {@link ChessColor} of the player.
+     * @param type {@link CastlingType} of the castling.
+     * @return True if that player can still castle that way.
+     */
+    boolean isAvailable(ChessColor color, CastlingType type) {
+        return (bits & bit(color, type)) != 0;
+    }
+
+    /**
+     * Takes away some availabilities.
+     * @param lost Bitmask of the availabilities lost.
+     * @return This CastlingRights if none of them was available, or the
+     * shared one without them otherwise.
+     */
+    CastlingRights without(int lost) {
+        return (bits & lost) == 0 ? this : of(bits & ~lost);
+    }
+
+    @Override
+    public Map<CastlingType, Boolean> get(Object key) {
+        return view.get(key);
+    }
+
+    @Override
+    public Set<Entry<ChessColor, Map<CastlingType, Boolean>>> entrySet() {
+        return view.entrySet();
+    }
+
+    /**
+     * Serializes the CastlingRights as plain immutable nested maps, the
+     * bitmask being recovered by {@link Chess} when they're read back.
+     * @return The immutable nested maps with the same availabilities.
+     */
+    private Object writeReplace() {
+        return view;
+    }
+
+}
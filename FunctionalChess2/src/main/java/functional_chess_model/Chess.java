@@ -6,21 +6,23 @@ import functional_chess_model.Pieces.Rook;
 
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.EnumMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalInt;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.BiFunction;
 import java.util.function.BiPredicate;
+import java.util.function.BooleanSupplier;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.IntStream;
 
 /**
  *
- * @param pieces {@link List} of {@link Piece}s involved in the game.
+ * @param pieces {@link List} of {@link Piece}s involved in the game. It's
+ * stored as a square-indexed board, so that finding the piece on a given
+ * {@link Position} doesn't need to go through the whole list.
  * @param castling {@link Map} that maps each {@link ChessColor} to another
  * map mapping each {@link CastlingType} to a boolean representing the
  * availability of castling for that player and castling variant.
@@ -45,6 +47,21 @@ public record Chess(
     int blackSeconds
 ) implements Serializable {
 
+    /**
+     * Compact constructor that stores the list of pieces as a {@link Board},
+     * indexing each piece by the square it's on, the list of plays as a
+     * {@link PlayHistory}, so that adding a play shares the previous ones,
+     * and the castling map as a bitmask of {@link CastlingRights}. If they
+     * already are a Board of the same variant, a PlayHistory and a
+     * CastlingRights, they're reused as they are.
+     * @throws IllegalArgumentException If any piece is outside the board.
+     */
+    public Chess {
+        pieces = Board.of(pieces, variant);
+        castling = CastlingRights.of(castling);
+        playHistory = PlayHistory.of(playHistory);
+    }
+
     //<editor-fold defaultstate="collapsed" desc="Update state functions">
 
     /**
@@ -62,7 +79,8 @@ public record Chess(
      * <ol>
      * <li>If no piece is found in {@code initPos}, {@code Optional.empty} is
      * returned. Otherwise, that piece is stored in {@code piece}.</li>
-     * <li>If {@code piece} can't legally move to {@code finPos} (with the
+     * <li>If {@code finPos} is outside the board, or {@code piece} can't
+     * legally move to it (with the
      * appropriate {@code checkCheck} parameter), {@code Optional.empty} is
      * returned.</li>
      * <li>Then a new initPieces list is created and properly updated, taking into
@@ -115,7 +133,7 @@ public record Chess(
     public Optional<Chess> tryToMove(Piece piece, Position finPos, boolean checkCheck) {
         ChessColor playerMoving = piece.getColor();
         Position initPos = piece.getPosition();
-        if (!piece.isLegalMovement(this, finPos, checkCheck)) return Optional.empty();
+        if (!variant.isInsideBoard(finPos) || !piece.isLegalMovement(this, finPos, checkCheck)) return Optional.empty();
 
         // Store the piece after being moved and piece captured if present.
         Piece pieceAfterMoving = piece.moveTo(finPos);
@@ -200,6 +218,35 @@ public record Chess(
         );
     }
 
+    /**
+     * Attempts to perform a {@link Play}, such as the ones returned by
+     * {@link Chess#legalMoves()}, and returns the state of the game after it's
+     * been done, or {@code Optional.empty} if it was illegal.
+     * @param play {@link Play} to perform.
+     * @return The state of the game after the play has been performed, or
+     * {@code Optional.empty} if it was illegal:
+     * <ul>
+     *     <li>If the play has {@code castlingInfo}, it's performed as that kind
+     *     of castling, provided it starts on the initial position of the
+     *     {@link King} and the castling is legal.</li>
+     *     <li>Otherwise it's performed as a movement, and if it has a
+     *     {@code pieceCrowned}, the pawn moved is then crowned into its
+     *     variant.</li>
+     * </ul>
+     */
+    public Optional<Chess> tryToPlay(Play play) {
+        if (play.castlingInfo() != null) {
+            return findPieceAt(play.initPos())
+                .filter(king -> play.initPos().equals(variant.initKingPos(king.getColor())))
+                .filter(king -> castlingTypeOfPlay(king, play.finPos()).filter(type -> type == play.castlingInfo()).isPresent())
+                .flatMap(king -> tryToCastle(king.getColor(), play.castlingInfo()));
+        }
+        Optional<Chess> gameAfterMoveOrNot = tryToMove(play);
+        if (play.pieceCrowned() == null) return gameAfterMoveOrNot;
+        return gameAfterMoveOrNot.flatMap(chess -> chess.findPieceThenApply(play.finPos(),
+            pawn -> chess.crownPawn(pawn, play.pieceCrowned().getClass().getSimpleName())));
+    }
+
     /**
      * Checks if the given player is in checkmate or if the game is a draw.
      * @param color {@link ChessColor} of the player being checked.
@@ -213,27 +260,15 @@ public record Chess(
      * in check, the state is updated to DRAW.
      * <br><br>
      * If there's a move that player can make that doesn't end up in them being
-     * in check, {@code Optional.empty} is returned.
+     * in check, {@code Optional.empty} is returned. The search for such a
+     * move is done by {@link Chess#hasAnyLegalMove(ChessColor)}, which stops
+     * on the first one found.
      */
     public Optional<Chess> checkMate(ChessColor color) {
-        boolean isInCheck = isPlayerInCheck(color);
-        for (Piece piece : pieces.stream()
-            .filter(p -> p.getColor() == color)
-            .toList()
-        ) {
-            for (int col = 1; col <= variant.cols(); col++) {
-                for (int row = 1; row <= variant.rows(); row++) {
-                    Position pos = Position.of(col, row);
-                    if (piece.isLegalMovement(this, pos, false)) {
-                        Chess gameAfterMovement = tryToMoveChain(piece.getPosition(), pos);
-                        if (!gameAfterMovement.isPlayerInCheck(color)) return Optional.empty();
-                    }
-                }
-            }
-        }
+        if (hasAnyLegalMove(color)) return Optional.empty();
         return Optional.of(
             Chess.Builder.of(this)
-                .withState(isInCheck ? GameState.playerWins(color.opposite()) : GameState.DRAW)
+                .withState(isPlayerInCheck(color) ? GameState.playerWins(color.opposite()) : GameState.DRAW)
                 .build()
         );
     }
@@ -297,14 +332,11 @@ public record Chess(
      *     <li>{@code pieceCaptured} is removed if not null.</li>
      *     <li>{@code pieceAfterMoving} is added.</li>
      * </ul>
-     * The returned list is first passed to List.copyOf to ensure immutability.
+     * The returned list is a new immutable {@link Board} derived from the
+     * current one.
      */
     private List<Piece> updatedPiecesAfterMove(Piece pieceBeforeMoving, Piece pieceAfterMoving, Piece pieceCaptured) {
-        List<Piece> updatedPieces = new ArrayList<>(pieces);
-        if (pieceCaptured != null) updatedPieces.remove(pieceCaptured);
-        updatedPieces.remove(pieceBeforeMoving);
-        updatedPieces.add(pieceAfterMoving);
-        return List.copyOf(updatedPieces);
+        return board().replace(new Piece[] {pieceCaptured, pieceBeforeMoving}, new Piece[] {pieceAfterMoving});
     }
 
     /**
@@ -316,12 +348,11 @@ public record Chess(
      * @return A list of plays reflecting the movement that was done: A new
      * {@link Play} is added with parameters {@code pieceMoved}, {@code initPos},
      * {@code finPos} and {@code pieceCaptured}.
-     * The returned list is first passed to List.copyOf to ensure immutability.
+     * The returned list is an immutable {@link PlayHistory} sharing the
+     * current one.
      */
     private List<Play> updatedPlaysAfterMove(Position initPos, Position finPos, Piece pieceMoved, Piece pieceCaptured) {
-        List<Play> updatedPlays = new LinkedList<>(playHistory);
-        updatedPlays.add(new Play(pieceMoved, initPos, finPos, pieceCaptured));
-        return List.copyOf(updatedPlays);
+        return history().append(new Play(pieceMoved, initPos, finPos, pieceCaptured));
     }
 
     /**
@@ -336,31 +367,24 @@ public record Chess(
      *     <li>If the nonactive player had one of its Rooks captured in the movement, the appropriate castling
      *     availability is set to false for that player.</li>
      * </ul>
-     * The returned map is first passed to Map.copyOf to ensure immutability.
+     * The returned map is the same {@link CastlingRights} if no availability
+     * was lost, or the shared one without the lost availabilities otherwise.
      */
     private Map<ChessColor, Map<CastlingType, Boolean>> updatedCastlingAfterMove(ChessColor playerMoving, Position initPos, Piece pieceCaptured) {
-        Map<ChessColor, Map<CastlingType, Boolean>> updatedCastling = new EnumMap<>(ChessColor.class);
-        for (ChessColor color : ChessColor.values()) {
-            Map<CastlingType, Boolean> updatedCastlingForColor = new EnumMap<>(CastlingType.class);
-            for (CastlingType type : CastlingType.values()) {
-                if (
-                    color.equals(playerMoving) // The color we're checking is the color of the player that just moved
-                        && isCastlingAvailable(color, type) // Castling was available before the movement for this color and variant
-                        && ( // The initial position of the movement was the king or rook's initial position of the castling variant we're checking
-                        initPos.equals(variant.initRookPos(type, color))
-                            || initPos.equals(variant.initKingPos(color))
-                    )) updatedCastlingForColor.put(type, false);
-                else if (
-                    pieceCaptured != null // A piece was captured
-                        && isCastlingAvailable(color, type) // Castling was available before the movement for this color and variant
-                        && color.equals(pieceCaptured.getColor()) // The color we're checking is the same as the captured piece
-                        && pieceCaptured.getPosition().equals(variant.initRookPos(type, color)) // The captured piece was in the rook initial position of the castling variant we're checking
-                ) updatedCastlingForColor.put(type, false);
-                else updatedCastlingForColor.put(type, isCastlingAvailable(color, type));
+        CastlingRights rights = castlingRights();
+        if (rights.bits() == 0) return rights;
+        int lost = 0;
+        for (CastlingType type : CastlingType.values()) {
+            // The movement started from the initial position of the king or the rook of this castling type
+            if (initPos.equals(variant.initRookPos(type, playerMoving)) || initPos.equals(variant.initKingPos(playerMoving))) {
+                lost |= CastlingRights.bit(playerMoving, type);
+            }
+            // The piece captured was in the initial position of the rook of this castling type
+            if (pieceCaptured != null && pieceCaptured.getPosition().equals(variant.initRookPos(type, pieceCaptured.getColor()))) {
+                lost |= CastlingRights.bit(pieceCaptured.getColor(), type);
             }
-            updatedCastling.put(color, Map.copyOf(updatedCastlingForColor));
         }
-        return Map.copyOf(updatedCastling);
+        return rights.without(lost);
     }
 
     /**
@@ -375,15 +399,17 @@ public record Chess(
      *     <li>A new {@link King} and {@link Rook} are instantiated and added with the position
      *     appropriate for the castling that was performed.</li>
      * </ul>
-     * The returned list is first passed to List.copyOf to ensure immutability.
+     * The returned list is a new immutable {@link Board} derived from the
+     * current one.
      */
     private List<Piece> updatedPiecesAfterCastling(ChessColor player, CastlingType castlingType, Piece king, Piece rook) {
-        List<Piece> updatedPieces = new ArrayList<>(pieces);
-        updatedPieces.remove(king);
-        updatedPieces.remove(rook);
-        updatedPieces.add(king.moveTo(variant.castlingKingPos(castlingType, player)));
-        updatedPieces.add(rook.moveTo(variant.castlingRookPos(castlingType, player)));
-        return List.copyOf(updatedPieces);
+        return board().replace(
+            new Piece[] {king, rook},
+            new Piece[] {
+                king.moveTo(variant.castlingKingPos(castlingType, player)),
+                rook.moveTo(variant.castlingRookPos(castlingType, player))
+            }
+        );
     }
 
     /**
@@ -395,12 +421,11 @@ public record Chess(
      * {@link Play} is added with parameters {@code king}, the King's
      * initial position, its final position after performing the
      * castling and {@code castlingType}.
-     * The returned list is first passed to List.copyOf to ensure immutability.
+     * The returned list is an immutable {@link PlayHistory} sharing the
+     * current one.
      */
     private List<Play> updatedPlaysAfterCastling(ChessColor player, CastlingType castlingType, Piece king) {
-        List<Play> updatedPlays = new LinkedList<>(playHistory);
-        updatedPlays.add(new Play(king, variant.initKingPos(player), variant.castlingKingPos(castlingType, player), castlingType));
-        return List.copyOf(updatedPlays);
+        return history().append(new Play(king, variant.initKingPos(player), variant.castlingKingPos(castlingType, player), castlingType));
     }
 
     /**
@@ -408,19 +433,10 @@ public record Chess(
      * @param player Player who performed the castling.
      * @return A castling map where the {@code player} has both types of castling availabilities
      * set to false.
-     * The returned map is first passed to Map.copyOf to ensure immutability.
+     * The returned map is the shared {@link CastlingRights} without them.
      */
     private Map<ChessColor, Map<CastlingType, Boolean>> updatedCastlingAfterCastling(ChessColor player) {
-        Map<ChessColor, Map<CastlingType, Boolean>> updatedCastling = new EnumMap<>(ChessColor.class);
-        for (ChessColor color : ChessColor.values()) {
-            Map<CastlingType, Boolean> updatedCastlingForColor = new EnumMap<>(CastlingType.class);
-            for (CastlingType type : CastlingType.values()) {
-                if (color == player) updatedCastlingForColor.put(type, false);
-                else updatedCastlingForColor.put(type, isCastlingAvailable(color, type));
-            }
-            updatedCastling.put(color, Map.copyOf(updatedCastlingForColor));
-        }
-        return Map.copyOf(updatedCastling);
+        return castlingRights().without(CastlingRights.bits(player));
     }
 
     /**
@@ -429,13 +445,11 @@ public record Chess(
      * @param crownedPiece {@link Piece} after crowning.
      * @return A list of pieces reflecting the crowning done: The piece before crowning is removed and
      * the piece after crowning is added.
-     * The returned list is first passed to List.copyOf to ensure immutability.
+     * The returned list is a new immutable {@link Board} derived from the
+     * current one.
      */
     private List<Piece> updatedPiecesAfterCrowning(Piece piece, Piece crownedPiece) {
-        List<Piece> updatedPieces = new ArrayList<>(pieces);
-        updatedPieces.remove(piece);
-        updatedPieces.add(crownedPiece);
-        return List.copyOf(updatedPieces);
+        return board().replace(new Piece[] {piece}, new Piece[] {crownedPiece});
     }
 
     /**
@@ -446,13 +460,11 @@ public record Chess(
      * @return A list of plays reflecting the crowning done: The last play is removed
      * and replaced with another that includes what {@link Piece} the pawn was crowned
      * into.
-     * The returned list is first passed to List.copyOf to ensure immutability.
+     * The returned list is an immutable {@link PlayHistory} sharing the
+     * plays before the last one.
      */
     private List<Play> updatedPlaysAfterCrowning(Piece piece, Play lastPlay, Piece crownedPiece) {
-        List<Play> updatedPlays = new LinkedList<>(playHistory);
-        updatedPlays.remove(playHistory.size() - 1);
-        updatedPlays.add(new Play(piece, lastPlay.initPos(), lastPlay.finPos(), lastPlay.pieceCaptured(), crownedPiece));
-        return List.copyOf(updatedPlays);
+        return history().withLast(new Play(piece, lastPlay.initPos(), lastPlay.finPos(), lastPlay.pieceCaptured(), crownedPiece));
     }
 
     //</editor-fold>
@@ -542,6 +554,16 @@ public record Chess(
         return flatMap(chess -> chess.tryToMove(play));
     }
 
+    /**
+     * Monadic version of {@link Chess#tryToPlay(Play)}.
+     * @param play {@link Play} to perform.
+     * @return The state of the game after the play has been performed, or
+     * {@code this} if it was illegal.
+     */
+    public Chess tryToPlayChain(Play play) {
+        return flatMap(chess -> chess.tryToPlay(play));
+    }
+
     /**
      * Monadic version of {@link Chess#checkMate(ChessColor)}.
      * @param color {@link ChessColor} of the player being checked.
@@ -591,16 +613,182 @@ public record Chess(
         return Optional.of(playHistory.getLast());
     }
 
+    /**
+     * Generates every legal {@link Play} of the active player.
+     * @return The list returned by {@link Chess#legalMoves(ChessColor)} for
+     * the {@code activePlayer}.
+     */
+    public List<Play> legalMoves() {
+        return legalMoves(activePlayer);
+    }
+
+    /**
+     * Generates every legal {@link Play} of the given player.
+     * @param color {@link ChessColor} of the player whose moves are generated.
+     * @return The list returned by
+     * {@link Chess#legalMoves(ChessColor, ForkJoinPool)}, generating the
+     * moves of each piece in the common {@link ForkJoinPool} if the player
+     * has enough pieces on a large enough board.
+     */
+    public List<Play> legalMoves(ChessColor color) {
+        return legalMoves(color, ParallelMoves.poolFor(this, color));
+    }
+
+    /**
+     * Generates every legal {@link Play} of the given player.
+     * @param color {@link ChessColor} of the player whose moves are generated.
+     * @param pool {@link ForkJoinPool} to generate the moves of each piece
+     * in, or {@code null} to generate them in the calling thread.
+     * @return A list with the plays generated by
+     * {@link Piece#generateMoves(Chess)} for each piece of that color,
+     * including castling and one play per crownable variant for movements
+     * that reach the crowning row. Each of them can be performed with
+     * {@link Chess#tryToPlay(Play)}.
+     * <br><br>
+     * The list is immutable, and it's computed only the first time it's
+     * requested for this state, along with the list of each piece.
+     */
+    public List<Play> legalMoves(ChessColor color, ForkJoinPool pool) {
+        DerivedData data = derivedData();
+        return data.movesOf(color, () -> ParallelMoves.flatMap(piecesOf(color), piece -> legalMovesOf(piece, data), pool));
+    }
+
+    /**
+     * Generates every legal {@link Play} of the given piece.
+     * @param piece {@link Piece} whose moves are generated.
+     * @return An immutable copy of the list returned by
+     * {@link Piece#generateMoves(Chess)}. For a piece of this game, it's
+     * computed only the first time it's requested for this state. If the
+     * moves of its player are worth generating in parallel, those of every
+     * piece of that player are generated at once, so that asking for another
+     * piece afterwards takes no time.
+     */
+    public List<Play> legalMovesOf(Piece piece) {
+        if (!piece.equals(board().pieceAt(piece.getPosition()))) return List.copyOf(piece.generateMoves(this));
+        DerivedData data = derivedData();
+        if (!data.hasMovesOf(board().geometry().index(piece.getPosition()))) {
+            ForkJoinPool pool = ParallelMoves.poolFor(this, piece.getColor());
+            if (pool != null) legalMoves(piece.getColor(), pool);
+        }
+        return legalMovesOf(piece, data);
+    }
+
+    private List<Play> legalMovesOf(Piece piece, DerivedData data) {
+        return data.movesOf(board().geometry().index(piece.getPosition()), () -> piece.generateMoves(this));
+    }
+
+    /**
+     * Checks whether the given player has any legal movement, stopping on the
+     * first one found instead of generating all of them.
+     * @param color {@link ChessColor} of the player whose moves are checked.
+     * @return The result of {@link Chess#hasAnyLegalMove(ChessColor, ForkJoinPool)},
+     * checking the pieces in the common {@link ForkJoinPool} if the player
+     * has enough pieces on a large enough board.
+     */
+    public boolean hasAnyLegalMove(ChessColor color) {
+        return hasAnyLegalMove(color, ParallelMoves.poolFor(this, color));
+    }
+
+    /**
+     * Checks whether the given player has any legal movement, stopping on the
+     * first one found instead of generating all of them.
+     * @param color {@link ChessColor} of the player whose moves are checked.
+     * @param pool {@link ForkJoinPool} to check the pieces other than the
+     * royal one in, where the first one to find a legal movement cancels the
+     * rest, or {@code null} to check them in the calling thread.
+     * @return True if {@link Chess#legalMoves(ChessColor)} wouldn't be empty.
+     * <br><br>
+     * When the player is in check, the escapes of its royal piece are tried
+     * first, and then only the movements of the other pieces that capture the
+     * checking piece or land between it and the royal piece, along with the
+     * possible en passant captures. Otherwise, the other pieces are tried
+     * first, as their movements are decided from the pins of the position
+     * without performing them, while those of the royal piece are performed.
+     */
+    public boolean hasAnyLegalMove(ChessColor color, ForkJoinPool pool) {
+        KingSafety safety = board().kingSafety(color);
+        List<Piece> royalPieces = new ArrayList<>(1);
+        List<Piece> otherPieces = new ArrayList<>();
+        for (Piece piece : piecesOf(color)) (piece.isRoyal() ? royalPieces : otherPieces).add(piece);
+        BiPredicate<Piece, BooleanSupplier> hasLegalMovement = (piece, stop) -> hasLegalMovement(piece, safety, stop);
+        if (safety.isInCheck() && ParallelMoves.anyMatch(royalPieces, hasLegalMovement, null)) return true;
+        if (ParallelMoves.anyMatch(otherPieces, hasLegalMovement, pool)) return true;
+        return !safety.isInCheck() && ParallelMoves.anyMatch(royalPieces, hasLegalMovement, null);
+    }
+
+    /**
+     * Checks whether a piece has any legal movement.
+     * @param piece {@link Piece} to move.
+     * @param safety {@link KingSafety} of its player, used to skip the
+     * movements of non-royal pieces that don't resolve a check.
+     * @param stop Tells whether the search is no longer needed, in which case
+     * it stops and returns false.
+     */
+    private boolean hasLegalMovement(Piece piece, KingSafety safety, BooleanSupplier stop) {
+        BoardGeometry geometry = board().geometry();
+        Position initPos = piece.getPosition();
+        for (Position finPos : piece.pseudoLegalPositions(this)) {
+            if (stop.getAsBoolean()) return false;
+            boolean isPossibleEnPassant = piece instanceof Pawn && initPos.x() != finPos.x() && !checkPieceAt(finPos);
+            boolean isCandidate = piece.isRoyal() || isPossibleEnPassant || safety.resolvesCheck(geometry.index(finPos));
+            if (isCandidate && piece.isLegalMovement(this, finPos)) return true;
+        }
+        return false;
+    }
+
+    private List<Piece> piecesOf(ChessColor color) {
+        List<Piece> piecesOfColor = new ArrayList<>();
+        for (Piece piece : pieces) {
+            if (piece.getColor() == color) piecesOfColor.add(piece);
+        }
+        return piecesOfColor;
+    }
+
+    /**
+     * Gets the square-indexed view of the pieces of the game.
+     * @return The {@code pieces} attribute, which the compact constructor
+     * always stores as a {@link Board}.
+     */
+    private Board board() {
+        return (Board) pieces;
+    }
+
+    /**
+     * Gets the data derived from this state of the game.
+     * @return The {@link DerivedData} the {@link Board} keeps for the
+     * castling availabilities and the play history of this state.
+     */
+    private DerivedData derivedData() {
+        return board().derivedData(castlingRights(), history());
+    }
+
+    /**
+     * Gets the persistent view of the plays of the game.
+     * @return The {@code playHistory} attribute, which the compact
+     * constructor always stores as a {@link PlayHistory}.
+     */
+    private PlayHistory history() {
+        return (PlayHistory) playHistory;
+    }
+
+    /**
+     * Gets the bitmask view of the castling availabilities of the game.
+     * @return The {@code castling} attribute, which the compact constructor
+     * always stores as a {@link CastlingRights}.
+     */
+    CastlingRights castlingRights() {
+        return (CastlingRights) castling;
+    }
+
     /**
      * Gets the piece present at the given position, if able.
      * @param pos {@link Position} to find a {@link Piece} in.
      * @return The {@link Piece} found in the parameter position if there's one,
-     * otherwise returns {@code Optional.empty}.
+     * otherwise returns {@code Optional.empty}. The lookup is done on the
+     * square-indexed {@link Board}, so it takes constant time.
      */
     public Optional<Piece> findPieceAt(Position pos) {
-        return pieces.stream()
-            .filter(piece -> piece.getPosition().equals(pos))
-            .findAny();
+        return Optional.ofNullable(board().pieceAt(pos));
     }
 
     /**
@@ -609,8 +797,7 @@ public record Chess(
      * @return True if there's a {@link Piece} in the parameter {@link Position}, false otherwise.
      */
     public boolean checkPieceAt(Position pos) {
-        return pieces.stream()
-            .anyMatch(piece -> piece.getPosition().equals(pos));
+        return board().pieceAt(pos) != null;
     }
 
     /**
@@ -621,7 +808,8 @@ public record Chess(
      * its color is the parameter color, false otherwise.
      */
     public boolean checkPieceSameColorAs(Position pos, ChessColor color) {
-        return findPieceThenTest(pos, piece -> piece.getColor() == color);
+        Piece piece = board().pieceAt(pos);
+        return piece != null && piece.getColor() == color;
     }
 
     /**
@@ -632,7 +820,33 @@ public record Chess(
      * its color is not the parameter color, false otherwise.
      */
     public boolean checkPieceDiffColorAs(Position pos, ChessColor color) {
-        return findPieceThenTest(pos, piece -> piece.getColor() != color);
+        Piece piece = board().pieceAt(pos);
+        return piece != null && piece.getColor() != color;
+    }
+
+    /**
+     * Gets the bitboard representation of the pieces of the game.
+     * @return A {@link BitBoard} with the squares occupied by each color and
+     * {@link PieceType}, which is kept alongside the pieces, so it isn't
+     * recomputed on each call.
+     */
+    public BitBoard toBitBoard() {
+        return board().bitBoard();
+    }
+
+    /**
+     * Replaces the pieces of the game by the ones stored in a bitboard.
+     * @param bitBoard {@link BitBoard} to read the pieces from.
+     * @return A new Chess game with all attributes copied from {@code this}
+     * except {@code pieces}, which are built from {@code bitBoard}.
+     * @throws IllegalArgumentException If the bitboard isn't of the same size
+     * as the board of this game's variant.
+     */
+    public Chess withBitBoard(BitBoard bitBoard) {
+        if (bitBoard.rows() != variant.rows() || bitBoard.cols() != variant.cols()) throw new IllegalArgumentException("The bitboard is of size " + bitBoard.rows() + "x" + bitBoard.cols() + ", while " + variant + " is played on " + variant.rows() + "x" + variant.cols());
+        return Chess.Builder.of(this)
+            .withPieces(bitBoard.toPieces())
+            .build();
     }
 
     /**
@@ -641,12 +855,12 @@ public record Chess(
      * @return The {@link Piece} of the parameter color whose {@code royal}
      * attribute is true, or {@code Optional.empty} if there's none. If somehow
      * there are multiple royal pieces, this method might return a different
-     * one on each call.
+     * one on each call. Its square is found along with the checks against
+     * it, so further calls on the same position don't search for it again.
      */
     public Optional<Piece> findRoyalPiece(ChessColor color) {
-        return pieces.stream()
-            .filter(piece -> piece.isRoyal() && piece.getColor() == color)
-            .findAny();
+        int royalSquare = board().kingSafety(color).royalSquare();
+        return royalSquare < 0 ? Optional.empty() : Optional.of(board().pieceAt(royalSquare));
     }
 
     /**
@@ -767,11 +981,11 @@ public record Chess(
      * Gets the availability of castling for the given player and variant.
      * @param color {@link ChessColor} player to check.
      * @param type {@link CastlingType} variant to check.
-     * @return Gets the {@code variant} key from the {@code color} key of the
+     * @return Gets the bit for {@code color} and {@code type} of the
      * castling map of {@code this}.
      */
     public boolean isCastlingAvailable(ChessColor color, CastlingType type) {
-        return castling.get(color).get(type);
+        return castlingRights().isAvailable(color, type);
     }
 
     /**
@@ -781,11 +995,41 @@ public record Chess(
      * opposite color that can legally capture their royal piece, ignoring if
      * making that move would cause a check for its controller. If the given
      * player has no royal initPieces, returns false.
+     * <br><br>
+     * The pieces giving check are found once per placement of the pieces,
+     * along with the pins, so further calls on the same position don't
+     * repeat the search.
+     * @see Chess#checkingPieces(ChessColor)
      */
     public boolean isPlayerInCheck(ChessColor color) {
-        Optional<Piece> royalPieceOrNot = findRoyalPiece(color);
-        return royalPieceOrNot.filter(royalPiece -> pieces.stream()
-            .anyMatch(piece -> piece.getColor() != color && piece.isLegalMovement(this, royalPiece.getPosition(), false))).isPresent();
+        return board().kingSafety(color).isInCheck();
+    }
+
+    /**
+     * Gets the pieces giving check to the given player.
+     * @param color {@link ChessColor} of the player in check.
+     * @return A list of the pieces of the opposite color that could capture
+     * the royal piece of {@code color}, ignoring if that would cause a check
+     * for them. Empty if the player isn't in check or has no royal piece.
+     */
+    public List<Piece> checkingPieces(ChessColor color) {
+        return board().kingSafety(color).checkerPositions().stream()
+            .map(board()::pieceAt)
+            .toList();
+    }
+
+    /**
+     * Gets the pieces of the given player that are pinned against its royal
+     * piece.
+     * @param color {@link ChessColor} of the pinned pieces.
+     * @return A list of the pieces of {@code color} that are the only piece
+     * between their royal piece and an enemy piece that could otherwise
+     * capture it riding along that line.
+     */
+    public List<Piece> pinnedPieces(ChessColor color) {
+        return board().kingSafety(color).pinnedPositions().stream()
+            .map(board()::pieceAt)
+            .toList();
     }
 
     /**
@@ -794,11 +1038,27 @@ public record Chess(
      * @param piece {@link Piece} to move.
      * @param finPos {@link Position} to move it to.
      * @return True if, after performing the movement, the player is in check,
-     * false otherwise.
+     * false otherwise or if the movement isn't legal for the piece.
+     * <br><br>
+     * Movements of pieces other than the royal one are decided from the
+     * checks and pins of the current position, without performing them. Only
+     * movements of the royal piece, and diagonal movements of {@link Pawn}s
+     * to empty squares, which may be en passant captures, are performed to
+     * look for a check afterwards.
      */
     public boolean doesThisMovementCauseACheck(Piece piece, Position finPos) {
-        Optional<Chess> gameAfterMovementOrNot = tryToMove(piece.getPosition(), finPos, false);
-        return gameAfterMovementOrNot.map(chess -> chess.isPlayerInCheck(piece.getColor())).orElse(false);
+        if (!variant.isInsideBoard(finPos)) return false;
+        Position initPos = piece.getPosition();
+        boolean needsSimulation = piece.isRoyal()
+            || !piece.equals(board().pieceAt(initPos))
+            || (piece instanceof Pawn && initPos.x() != finPos.x() && !checkPieceAt(finPos));
+        if (needsSimulation) {
+            Optional<Chess> gameAfterMovementOrNot = tryToMove(initPos, finPos, false);
+            return gameAfterMovementOrNot.map(chess -> chess.isPlayerInCheck(piece.getColor())).orElse(false);
+        }
+        BoardGeometry geometry = board().geometry();
+        if (board().kingSafety(piece.getColor()).allows(geometry.index(initPos), geometry.index(finPos))) return false;
+        return piece.isLegalMovement(this, finPos, false);
     }
 
     /**
@@ -815,6 +1075,40 @@ public record Chess(
         return findPieceThenTest(initPos, piece -> doesThisMovementCauseACheck(piece, finPos));
     }
 
+    /**
+     * Gets the Zobrist key of the position of the game, a 64-bit hash that
+     * can be used to find repeated positions or as the key of a table of
+     * positions.
+     * @return The XOR of the keys of each piece on its square, the side to
+     * move, each castling still available and the column of the pawn that
+     * moved two rows on the last play, only if a pawn of the opposite color is
+     * next to it, ready to capture it en passant. The keys of the pieces are
+     * kept by the {@link Board} and updated with each movement, castling and
+     * crowning, so this method takes constant time.
+     */
+    public long zobristKey() {
+        ZobristKeys zobristKeys = board().zobristKeys();
+        long key = board().pieceKey() ^ zobristKeys.side(activePlayer);
+        for (ChessColor color : ChessColor.values()) {
+            for (CastlingType type : CastlingType.values()) {
+                if (isCastlingAvailable(color, type)) key ^= zobristKeys.castling(color, type);
+            }
+        }
+        return key ^ enPassantKey(zobristKeys);
+    }
+
+    private long enPassantKey(ZobristKeys zobristKeys) {
+        if (playHistory.isEmpty()) return 0;
+        Play lastPlay = playHistory.getLast();
+        if (!(lastPlay.piece() instanceof Pawn) || Math.abs(Position.yDist(lastPlay.initPos(), lastPlay.finPos())) != 2) return 0;
+        Position pos = lastPlay.finPos();
+        for (int xDir = -1; xDir <= 1; xDir += 2) {
+            Piece neighbour = board().pieceAt(pos.x() + xDir, pos.y());
+            if (neighbour instanceof Pawn && neighbour.getColor() != lastPlay.piece().getColor()) return zobristKeys.enPassant(pos.x());
+        }
+        return 0;
+    }
+
     /**
      * Gets the direction in the X axis the piece needs to move to capture
      * en passant the last piece moved, if that's a legal movement for it.
@@ -822,19 +1116,15 @@ public record Chess(
      * @return An OptionalInt of +1 or -1 if the last {@link Play} was a
      * {@link Pawn} moving two cells from its starting position, {@code piece}
      * is also a {@link Pawn} of the opposite color and is within 1 unit from it
-     * in the X axis.
+     * in the X axis. Whether the last play allows an en passant capture is
+     * decided once per state of the game.
      */
     public OptionalInt getEnPassantXDir(Piece piece) {
-        Optional<Play> lastPlayOrNot = getLastPlay();
+        if (!(piece instanceof Pawn)) return OptionalInt.empty();
+        Play lastPlay = derivedData().enPassantPlay();
 
-        if (lastPlayOrNot.isEmpty()) return OptionalInt.empty();
-
-        Play lastPlay = lastPlayOrNot.get();
-        Piece lastPieceMoved = lastPlay.piece();
-
-        if (!(lastPieceMoved instanceof Pawn) || !(piece instanceof Pawn)) return OptionalInt.empty();
-        if (lastPieceMoved.getColor() == piece.getColor()) return OptionalInt.empty();
-        if (Math.abs(Position.yDist(lastPlay.initPos(), lastPlay.finPos())) != 2) return OptionalInt.empty();
+        if (lastPlay == null) return OptionalInt.empty();
+        if (lastPlay.piece().getColor() == piece.getColor()) return OptionalInt.empty();
         if (Math.abs(Position.xDist(lastPlay.finPos(), piece.getPosition())) != 1) return OptionalInt.empty();
 
         return OptionalInt.of(Position.xDist(piece.getPosition(), lastPlay.finPos()));
@@ -897,14 +1187,52 @@ public record Chess(
      * @return Returns false is the path described isn't in a diagonal or
      * straight line, like a Bishop or Rook would make.
      * Then it returns true if there's no piece on each middle point of the
-     * described path, excluding initial and final positions.
+     * described path, excluding initial and final positions. When both ends
+     * of the path are on the board, this is a single mask operation on the
+     * {@link BitBoard} of the game.
      * @see Chess#isPathClear(Position, Position)
      */
     public boolean isPathClear(int initX, int initY, int Xmovement, int Ymovement) {
         if (!isBishopLikePath(Xmovement, Ymovement) && !isRookLikePath(Xmovement, Ymovement)) return false;
-        return IntStream.range(1, Math.max(Math.abs(Xmovement), Math.abs(Ymovement)))
-            .mapToObj(n -> Position.of(initX + n* Integer.compare(Xmovement, 0), initY + n* Integer.compare(Ymovement, 0)))
-            .noneMatch(this::checkPieceAt);
+        BitBoard bitBoard = toBitBoard();
+        if (bitBoard.isInside(initX, initY) && bitBoard.isInside(initX + Xmovement, initY + Ymovement)) {
+            return bitBoard.isPathClear(bitBoard.index(initX, initY), bitBoard.index(initX + Xmovement, initY + Ymovement));
+        }
+        for (int n = 1; n < Math.max(Math.abs(Xmovement), Math.abs(Ymovement)); n++) {
+            if (board().pieceAt(initX + n * Integer.compare(Xmovement, 0), initY + n * Integer.compare(Ymovement, 0)) != null) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks the collision along a path following a Nightrider-like movement,
+     * ie, a repetition of the same Knight-like leap.
+     * @param initPos Initial Position of the movement.
+     * @param finPos Final Position of the movement.
+     * @return Returns false if the movement isn't a whole number of the same
+     * Knight-like leap. Then it returns true if there's no piece on each of
+     * the squares leaped to before {@code finPos}, which are walked along the
+     * rays precomputed by the {@link BoardGeometry} of the board when both
+     * ends are on it, without creating any object.
+     */
+    public boolean isNightriderPathClear(Position initPos, Position finPos) {
+        int Xmovement = Position.xDist(initPos, finPos);
+        int Ymovement = Position.yDist(initPos, finPos);
+        if (Math.abs(Xmovement) != 2*Math.abs(Ymovement) && Math.abs(Ymovement) != 2*Math.abs(Xmovement)) return false;
+        int steps = Math.min(Math.abs(Xmovement), Math.abs(Ymovement));
+        if (steps == 0) return false;
+        BoardGeometry geometry = board().geometry();
+        if (geometry.isInside(initPos.x(), initPos.y()) && geometry.isInside(finPos.x(), finPos.y())) {
+            int[] ray = geometry.knightRay(geometry.index(initPos), BoardGeometry.knightDirection(Xmovement / steps, Ymovement / steps));
+            for (int n = 0; n < steps - 1; n++) {
+                if (board().pieceAt(ray[n]) != null) return false;
+            }
+            return true;
+        }
+        for (int n = 1; n < steps; n++) {
+            if (board().pieceAt(initPos.x() + n * Xmovement / steps, initPos.y() + n * Ymovement / steps) != null) return false;
+        }
+        return true;
     }
 
     /**
@@ -982,6 +1310,52 @@ public record Chess(
         return isKnightLikePath(Position.xDist(initPos, finPos), Position.yDist(initPos, finPos));
     }
 
+    /**
+     * Lists the positions a piece reaches leaping once with each step of a
+     * {@link MovementPattern}, like a Knight or a King.
+     * @param piece {@link Piece} leaping.
+     * @param pattern {@link MovementPattern} whose steps are leaped.
+     * @return A mutable list of the positions that are inside the board and
+     * not occupied by a piece of the same color as {@code piece}.
+     */
+    public List<Position> leaperPositions(Piece piece, MovementPattern pattern) {
+        List<Position> positions = new ArrayList<>(pattern.size());
+        Position initPos = piece.getPosition();
+        for (int i = 0; i < pattern.size(); i++) {
+            int x = initPos.x() + pattern.xStep(i);
+            int y = initPos.y() + pattern.yStep(i);
+            if (x < 1 || x > variant.cols() || y < 1 || y > variant.rows()) continue;
+            Position finPos = Position.of(x, y);
+            if (!checkPieceSameColorAs(finPos, piece.getColor())) positions.add(finPos);
+        }
+        return positions;
+    }
+
+    /**
+     * Lists the positions a piece reaches riding along each step of a
+     * {@link MovementPattern}, like a Rook or a Nightrider.
+     * @param piece {@link Piece} riding.
+     * @param pattern {@link MovementPattern} whose steps are ridden.
+     * @return A mutable list of the positions found repeating each step from
+     * the position of {@code piece} until leaving the board or finding another
+     * piece, which is included only if it's of a different color. The lines
+     * are walked along the rays precomputed by the {@link BoardGeometry} of
+     * the board.
+     */
+    public List<Position> riderPositions(Piece piece, MovementPattern pattern) {
+        List<Position> positions = new ArrayList<>();
+        BoardGeometry geometry = board().geometry();
+        int from = geometry.index(piece.getPosition());
+        for (int i = 0; i < pattern.size(); i++) {
+            for (int square : geometry.ray(pattern, from, i)) {
+                Piece pieceFound = board().pieceAt(square);
+                if (pieceFound == null || pieceFound.getColor() != piece.getColor()) positions.add(Position.of(geometry.x(square), geometry.y(square)));
+                if (pieceFound != null) break;
+            }
+        }
+        return positions;
+    }
+
     //</editor-fold>
 
     //<editor-fold defaultstate="collapsed" desc="Builder Inner Class">
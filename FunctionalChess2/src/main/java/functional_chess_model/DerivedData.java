@@ -0,0 +1,121 @@
+package functional_chess_model;
+
+import functional_chess_model.Pieces.Pawn;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * Data derived from one state of a {@link Chess} game that the controller
+ * and the view ask for again and again, such as the legal movements of each
+ * piece, computed the first time it's requested and then reused.
+ * <br><br>
+ * Since {@link Chess} is a record, it can't hold this data itself, so it's
+ * kept by its {@link Board} along with the castling availabilities and the
+ * play history it was computed for, which together with the pieces determine
+ * every legal movement. States that share all three, like the ones created
+ * by each tick of the timer, share the same DerivedData. It's never
+ * serialized nor compared, so it doesn't affect the equality of the states
+ * or the saved games format.
+ * <br><br>
+ * Every value stored is immutable, and they're stored in atomic arrays, so a
+ * DerivedData can be shared between threads. Two threads asking for the same
+ * value at once might both compute it, but they get equal results.
+ * @author Alfonso Gallego
+ */
+final class DerivedData {
+
+    private final CastlingRights castling;
+    private final PlayHistory history;
+    /**
+     * Last play of the history if it was a {@link Pawn} moving two rows,
+     * which can then be captured en passant, or {@code null} otherwise.
+     */
+    private final Play enPassantPlay;
+    /**
+     * Legal movements of the piece on each square, indexed as in
+     * {@link BoardGeometry}.
+     */
+    private final AtomicReferenceArray<List<Play>> movesBySquare;
+    /**
+     * Legal movements of each color, indexed by {@link ChessColor#ordinal()}.
+     */
+    private final AtomicReferenceArray<List<Play>> movesByColor;
+
+    DerivedData(CastlingRights castling, PlayHistory history, int squares) {
+        this.castling = castling;
+        this.history = history;
+        this.enPassantPlay = enPassantPlayOf(history);
+        this.movesBySquare = new AtomicReferenceArray<>(squares);
+        this.movesByColor = new AtomicReferenceArray<>(ChessColor.values().length);
+    }
+
+    /**
+     * Checks whether this data was computed for the given castling
+     * availabilities and play history.
+     * @param castling {@link CastlingRights} of the state.
+     * @param history {@link PlayHistory} of the state.
+     * @return True if both are the same instances this data was created for.
+     */
+    boolean isOf(CastlingRights castling, PlayHistory history) {
+        return this.castling == castling && this.history == history;
+    }
+
+    /**
+     * Gets the last play if a pawn can be captured en passant after it.
+     * @return The last {@link Play} if it was a {@link Pawn} moving two rows,
+     * or {@code null} otherwise.
+     */
+    Play enPassantPlay() {
+        return enPassantPlay;
+    }
+
+    /**
+     * Checks whether the legal movements of the piece on a square have
+     * already been computed.
+     * @param square Index of the square of the piece.
+     * @return True if {@link #movesOf(int, Supplier)} would return them
+     * without computing them.
+     */
+    boolean hasMovesOf(int square) {
+        return movesBySquare.get(square) != null;
+    }
+
+    /**
+     * Gets the legal movements of the piece on a square, computing them the
+     * first time they're requested.
+     * @param square Index of the square of the piece.
+     * @param moves Supplier of the legal movements of the piece.
+     * @return An immutable copy of the list given by {@code moves}.
+     */
+    List<Play> movesOf(int square, Supplier<List<Play>> moves) {
+        return computeIfAbsent(movesBySquare, square, moves);
+    }
+
+    /**
+     * Gets the legal movements of a player, computing them the first time
+     * they're requested.
+     * @param color {@link ChessColor} of the player.
+     * @param moves Supplier of the legal movements of the player.
+     * @return An immutable copy of the list given by {@code moves}.
+     */
+    List<Play> movesOf(ChessColor color, Supplier<List<Play>> moves) {
+        return computeIfAbsent(movesByColor, color.ordinal(), moves);
+    }
+
+    private static List<Play> computeIfAbsent(AtomicReferenceArray<List<Play>> cache, int index, Supplier<List<Play>> moves) {
+        List<Play> cached = cache.get(index);
+        if (cached != null) return cached;
+        List<Play> computed = List.copyOf(moves.get());
+        return cache.compareAndSet(index, null, computed) ? computed : cache.get(index);
+    }
+
+    private static Play enPassantPlayOf(PlayHistory history) {
+        if (history.isEmpty()) return null;
+        Play lastPlay = history.getLast();
+        if (!(lastPlay.piece() instanceof Pawn) || Math.abs(Position.yDist(lastPlay.initPos(), lastPlay.finPos())) != 2) return null;
+        return lastPlay;
+    }
+
+}
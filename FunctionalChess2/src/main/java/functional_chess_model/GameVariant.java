@@ -5,7 +5,6 @@ import functional_chess_model.Pieces.*;
 import view.ChessGUI;
 
 import java.util.ArrayList;
-import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.IntStream;
@@ -77,6 +76,10 @@ public enum GameVariant {
         return initGame(isTimed, isTimed ? 300 : -1);
     }
 
+    public boolean isInsideBoard(Position pos) {
+        return pos.x() >= 1 && pos.x() <= cols && pos.y() >= 1 && pos.y() <= rows;
+    }
+
     public Position initKingPos(ChessColor color) {
         return Position.of(initKingCol, initRow(color));
     }
@@ -126,15 +129,7 @@ public enum GameVariant {
     }
 
     private static Map<ChessColor, Map<CastlingType, Boolean>> initCastlingWith(boolean value) {
-        Map<ChessColor, Map<CastlingType, Boolean>> initCastling = new EnumMap<>(ChessColor.class);
-        for (ChessColor color : ChessColor.values()) {
-            Map<CastlingType, Boolean> castlingForColor = new EnumMap<>(CastlingType.class);
-            for (CastlingType type : CastlingType.values()) {
-                castlingForColor.put(type, value);
-            }
-            initCastling.put(color, castlingForColor);
-        }
-        return Map.copyOf(initCastling);
+        return CastlingRights.of(value ? CastlingRights.ALL : 0);
     }
 
     private static List<Piece> standardPieces() {
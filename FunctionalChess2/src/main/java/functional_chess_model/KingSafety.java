@@ -0,0 +1,276 @@
+package functional_chess_model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable summary of the threats against the royal piece of one
+ * {@link ChessColor} on a {@link Board}: the enemy pieces giving check and
+ * the pieces of that color pinned against it.
+ * <br><br>
+ * Both only depend on the placement of the pieces, so a KingSafety is
+ * computed once per Board and color, walking the lines that go out of the
+ * royal piece, and then answers whether a movement of a non-royal piece
+ * would leave its royal piece in check without performing it:
+ * <ul>
+ *     <li>When in double check, no such movement is legal.</li>
+ *     <li>When in check, the movement must capture the checking piece or
+ *     land between it and the royal piece.</li>
+ *     <li>A pinned piece must stay on the line between the royal piece and
+ *     the piece pinning it, which it can capture.</li>
+ * </ul>
+ * Movements of the royal piece and en passant captures, which can uncover
+ * the royal piece in other ways, aren't covered and still need to be
+ * simulated.
+ * <br><br>
+ * Squares are indexed as in {@link BoardGeometry}, and sets of squares are
+ * stored as a low and a high word.
+ * @author Alfonso Gallego
+ */
+final class KingSafety {
+
+    private static final int[][] KNIGHT_STEPS = steps(MovementPattern.KNIGHT);
+    private static final int[][] KING_STEPS = steps(MovementPattern.KING);
+    /**
+     * Lines going out of the royal piece along which it can be checked or
+     * have pieces pinned.
+     */
+    private static final MovementPattern[] LINES = {MovementPattern.KING, MovementPattern.KNIGHT};
+
+    private final BoardGeometry geometry;
+    /**
+     * Square of the royal piece, or -1 if the color has none.
+     */
+    private final int royalSquare;
+    private final int[] checkerSquares;
+    /**
+     * Squares a non-royal piece may move to while in check: every square if
+     * there's no check, none if there's more than one checking piece.
+     */
+    private final long evasionLow;
+    private final long evasionHigh;
+    private final int[] pinnedSquares;
+    /**
+     * For each pinned piece, squares of the line it's pinned along.
+     */
+    private final long[] pinLow;
+    private final long[] pinHigh;
+
+    private KingSafety(BoardGeometry geometry, int royalSquare, int[] checkerSquares, long evasionLow, long evasionHigh, int[] pinnedSquares, long[] pinLow, long[] pinHigh) {
+        this.geometry = geometry;
+        this.royalSquare = royalSquare;
+        this.checkerSquares = checkerSquares;
+        this.evasionLow = evasionLow;
+        this.evasionHigh = evasionHigh;
+        this.pinnedSquares = pinnedSquares;
+        this.pinLow = pinLow;
+        this.pinHigh = pinHigh;
+    }
+
+    /**
+     * Computes the checks and pins against the royal piece of a color.
+     * @param board {@link Board} of the game.
+     * @param geometry {@link BoardGeometry} of the board.
+     * @param color {@link ChessColor} whose royal piece is examined.
+     * @return A new KingSafety for that color. If it has no royal piece, it
+     * allows every movement.
+     */
+    static KingSafety of(Board board, BoardGeometry geometry, ChessColor color) {
+        Piece royalPiece = null;
+        for (Piece piece : board) {
+            if (piece.isRoyal() && piece.getColor() == color) {
+                royalPiece = piece;
+                break;
+            }
+        }
+        if (royalPiece == null) return new KingSafety(geometry, -1, new int[0], -1L, -1L, new int[0], new long[0], new long[0]);
+
+        int kingX = royalPiece.getPosition().x();
+        int kingY = royalPiece.getPosition().y();
+        List<Integer> checkers = new ArrayList<>(2);
+        long evasionLow = 0, evasionHigh = 0;
+        int pins = 0;
+        int[] pinnedSquares = new int[KING_STEPS.length + KNIGHT_STEPS.length];
+        long[] pinLow = new long[pinnedSquares.length];
+        long[] pinHigh = new long[pinnedSquares.length];
+
+        // Riders: walk each line out of the royal piece up to the second piece found.
+        int kingSquare = geometry.index(kingX, kingY);
+        for (MovementPattern lines : LINES) {
+            for (int i = 0; i < lines.size(); i++) {
+                long lineLow = 0, lineHigh = 0;
+                int pinnedSquare = -1;
+                for (int square : geometry.ray(lines, kingSquare, i)) {
+                    if (square < 64) lineLow |= 1L << square;
+                    else lineHigh |= 1L << (square - 64);
+                    Piece piece = board.pieceAt(square);
+                    if (piece == null) continue;
+                    if (piece.getColor() == color) {
+                        if (pinnedSquare >= 0) break;
+                        pinnedSquare = square;
+                        continue;
+                    }
+                    if (isRiderAlong(piece, lines.xStep(i), lines.yStep(i))) {
+                        if (pinnedSquare >= 0) {
+                            pinnedSquares[pins] = pinnedSquare;
+                            pinLow[pins] = lineLow;
+                            pinHigh[pins] = lineHigh;
+                            pins++;
+                        } else {
+                            checkers.add(square);
+                            evasionLow |= lineLow;
+                            evasionHigh |= lineHigh;
+                        }
+                    }
+                    break;
+                }
+            }
+        }
+
+        // Leapers: Knight-like leaps, adjacent Kings and Pawn captures.
+        for (int[] step : KNIGHT_STEPS) {
+            Piece piece = board.pieceAt(kingX + step[0], kingY + step[1]);
+            if (piece != null && piece.getColor() != color && isKnightLeaper(piece)) {
+                int square = geometry.index(piece.getPosition());
+                checkers.add(square);
+                if (square < 64) evasionLow |= 1L << square;
+                else evasionHigh |= 1L << (square - 64);
+            }
+        }
+        for (int[] step : KING_STEPS) {
+            Piece piece = board.pieceAt(kingX + step[0], kingY + step[1]);
+            if (piece == null || piece.getColor() == color) continue;
+            PieceType type = PieceType.of(piece);
+            // A pawn attacks the royal piece if the royal piece is diagonally adjacent to it, one row ahead of it.
+            boolean isPawnCapture = type == PieceType.PAWN && step[0] != 0 && step[1] == -piece.getColor().yDirection();
+            if (type == PieceType.KING || isPawnCapture) {
+                int square = geometry.index(piece.getPosition());
+                checkers.add(square);
+                if (square < 64) evasionLow |= 1L << square;
+                else evasionHigh |= 1L << (square - 64);
+            }
+        }
+
+        if (checkers.isEmpty()) {
+            evasionLow = -1L;
+            evasionHigh = -1L;
+        } else if (checkers.size() > 1) {
+            evasionLow = 0;
+            evasionHigh = 0;
+        }
+        return new KingSafety(
+            geometry,
+            kingSquare,
+            checkers.stream().mapToInt(Integer::intValue).toArray(),
+            evasionLow,
+            evasionHigh,
+            Arrays.copyOf(pinnedSquares, pins),
+            Arrays.copyOf(pinLow, pins),
+            Arrays.copyOf(pinHigh, pins)
+        );
+    }
+
+    /**
+     * Gets the square of the royal piece.
+     * @return Its index, as in {@link BoardGeometry}, or -1 if the color has
+     * no royal piece.
+     */
+    int royalSquare() {
+        return royalSquare;
+    }
+
+    /**
+     * Checks whether the royal piece is in check.
+     * @return True if at least one enemy piece attacks the royal piece.
+     */
+    boolean isInCheck() {
+        return checkerSquares.length > 0;
+    }
+
+    /**
+     * Gets the positions of the pieces giving check.
+     * @return A list of the {@link Position} of each checking piece.
+     */
+    List<Position> checkerPositions() {
+        return positionsOf(checkerSquares);
+    }
+
+    /**
+     * Gets the positions of the pinned pieces.
+     * @return A list of the {@link Position} of each pinned piece.
+     */
+    List<Position> pinnedPositions() {
+        return positionsOf(pinnedSquares);
+    }
+
+    /**
+     * Checks whether a non-royal piece landing on a square resolves the
+     * current check, ignoring pins. En passant captures aren't covered.
+     * @param square Index of the square the piece lands on.
+     * @return True if there's no check, or if the square is that of the only
+     * checking piece or between it and the royal piece.
+     */
+    boolean resolvesCheck(int square) {
+        return royalSquare < 0 || contains(evasionLow, evasionHigh, square);
+    }
+
+    /**
+     * Checks whether moving a non-royal piece between two squares leaves the
+     * royal piece out of check. En passant captures aren't covered.
+     * @param from Index of the square of the piece moved.
+     * @param to Index of the square it's moved to.
+     * @return True if the movement resolves the current check, if any, and
+     * doesn't take a pinned piece out of its line.
+     */
+    boolean allows(int from, int to) {
+        if (!resolvesCheck(to)) return false;
+        for (int i = 0; i < pinnedSquares.length; i++) {
+            if (pinnedSquares[i] == from) return contains(pinLow[i], pinHigh[i], to);
+        }
+        return true;
+    }
+
+    private List<Position> positionsOf(int[] squares) {
+        List<Position> positions = new ArrayList<>(squares.length);
+        for (int square : squares) positions.add(Position.of(geometry.x(square), geometry.y(square)));
+        return positions;
+    }
+
+    private static boolean contains(long low, long high, int square) {
+        return square < 64 ? (low & (1L << square)) != 0 : (high & (1L << (square - 64))) != 0;
+    }
+
+    /**
+     * Checks whether a piece rides along the line of the given step.
+     * @param piece {@link Piece} found on the line.
+     * @param xStep X coordinate of the step of the line.
+     * @param yStep Y coordinate of the step of the line.
+     * @return True if the piece moves along straight lines and the step is
+     * orthogonal, along diagonals and the step is diagonal, or it's a
+     * Nightrider and the step is a Knight-like leap.
+     */
+    private static boolean isRiderAlong(Piece piece, int xStep, int yStep) {
+        return switch (PieceType.of(piece)) {
+            case ROOK, CHANCELLOR -> Chess.isRookLikePath(xStep, yStep);
+            case BISHOP, ARCHBISHOP -> Chess.isBishopLikePath(xStep, yStep);
+            case QUEEN, AMAZON -> !Chess.isKnightLikePath(xStep, yStep);
+            case NIGHTRIDER -> Chess.isKnightLikePath(xStep, yStep);
+            default -> false;
+        };
+    }
+
+    private static boolean isKnightLeaper(Piece piece) {
+        return switch (PieceType.of(piece)) {
+            case KNIGHT, AMAZON, ARCHBISHOP, CHANCELLOR -> true;
+            default -> false;
+        };
+    }
+
+    private static int[][] steps(MovementPattern pattern) {
+        int[][] steps = new int[pattern.size()][];
+        for (int i = 0; i < pattern.size(); i++) steps[i] = new int[] {pattern.xStep(i), pattern.yStep(i)};
+        return steps;
+    }
+
+}
@@ -0,0 +1,54 @@
+package functional_chess_model;
+
+/**
+ * Enum class listing the elemental steps that {@link Piece}s combine to move.
+ * A leaper moves exactly one of the steps of its pattern, while a rider
+ * repeats the same step along a line until it reaches the edge of the board
+ * or another piece.
+ * @author Alfonso Gallego
+ */
+public enum MovementPattern {
+    /**
+     * The eight leaps of a Knight. Ridden, they're the lines of a Nightrider.
+     */
+    KNIGHT(new int[][] {{1, 2}, {2, 1}, {2, -1}, {1, -2}, {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}}),
+    /**
+     * The eight steps to the adjacent squares. Ridden, they're the lines of a
+     * Queen.
+     */
+    KING(new int[][] {{0, 1}, {1, 1}, {1, 0}, {1, -1}, {0, -1}, {-1, -1}, {-1, 0}, {-1, 1}}),
+    /**
+     * The four orthogonal steps, ridden by a Rook.
+     */
+    ROOK(new int[][] {{0, 1}, {1, 0}, {0, -1}, {-1, 0}}),
+    /**
+     * The four diagonal steps, ridden by a Bishop.
+     */
+    BISHOP(new int[][] {{1, 1}, {1, -1}, {-1, -1}, {-1, 1}});
+
+    private final int[][] steps;
+
+    MovementPattern(int[][] steps) {
+        this.steps = steps;
+    }
+
+    /**
+     * Getter for the number of steps of the pattern.
+     * @return The number of different steps of this pattern.
+     */
+    public int size() {return steps.length;}
+
+    /**
+     * Gets the X coordinate of one of the steps.
+     * @param i Index of the step.
+     * @return The signed distance travelled in the X axis by that step.
+     */
+    public int xStep(int i) {return steps[i][0];}
+
+    /**
+     * Gets the Y coordinate of one of the steps.
+     * @param i Index of the step.
+     * @return The signed distance travelled in the Y axis by that step.
+     */
+    public int yStep(int i) {return steps[i][1];}
+}
@@ -0,0 +1,143 @@
+package functional_chess_model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiPredicate;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+/**
+ * Splits the work done for each piece of a player among the threads of a
+ * {@link ForkJoinPool}. The legality of the movements of each piece is
+ * decided on the immutable {@link Chess} state alone, so the pieces can be
+ * checked independently.
+ * <br><br>
+ * Splitting only pays off when there's enough work to split, so by default
+ * it's only done for players with at least {@link #MIN_PIECES} pieces on
+ * boards larger than the standard one, and never when already running inside
+ * a fork/join computation such as {@code ParallelPerft}, or when the common
+ * pool has a single thread.
+ * @author Alfonso Gallego
+ */
+final class ParallelMoves {
+
+    /**
+     * Minimum number of squares of the board to split the work by default.
+     */
+    static final int MIN_SQUARES = 65;
+    /**
+     * Minimum number of pieces of the player to split the work by default.
+     */
+    static final int MIN_PIECES = 8;
+    /**
+     * Number of pieces a task checks itself instead of splitting them into
+     * more tasks.
+     */
+    private static final int LEAF_PIECES = 2;
+
+    private ParallelMoves() {}
+
+    /**
+     * Chooses where to do the work for the pieces of a player.
+     * @param game {@link Chess} game being checked.
+     * @param color {@link ChessColor} of the player.
+     * @return The common {@link ForkJoinPool} if the work is worth
+     * splitting, or {@code null} to do it in the calling thread.
+     */
+    static ForkJoinPool poolFor(Chess game, ChessColor color) {
+        if (ForkJoinPool.getCommonPoolParallelism() < 2) return null;
+        if (Thread.currentThread() instanceof ForkJoinWorkerThread) return null;
+        if (game.variant().rows() * game.variant().cols() < MIN_SQUARES) return null;
+        int pieces = 0;
+        for (Piece piece : game.pieces()) {
+            if (piece.getColor() == color) pieces++;
+        }
+        return pieces >= MIN_PIECES ? ForkJoinPool.commonPool() : null;
+    }
+
+    /**
+     * Checks whether any of the pieces passes a test, stopping every other
+     * test as soon as one passes.
+     * @param pieces {@link Piece}s to test.
+     * @param test Test of a piece, which receives a {@link BooleanSupplier}
+     * telling whether another piece already passed, in which case it can stop
+     * early and return false.
+     * @param pool {@link ForkJoinPool} to run the tests in, or {@code null}
+     * to run them one after another in the calling thread.
+     * @return True if any piece passes the test.
+     */
+    static boolean anyMatch(List<Piece> pieces, BiPredicate<Piece, BooleanSupplier> test, ForkJoinPool pool) {
+        if (pool == null) {
+            for (Piece piece : pieces) {
+                if (test.test(piece, () -> false)) return true;
+            }
+            return false;
+        }
+        AtomicBoolean found = new AtomicBoolean();
+        pool.invoke(new AnyMatchTask(pieces, 0, pieces.size(), test, found));
+        return found.get();
+    }
+
+    /**
+     * Gathers the plays of each piece.
+     * @param pieces {@link Piece}s whose plays are gathered.
+     * @param plays Function giving the plays of a piece.
+     * @param pool {@link ForkJoinPool} to get the plays of each piece in, or
+     * {@code null} to get them one after another in the calling thread.
+     * @return A list with the plays of each piece, in the order of
+     * {@code pieces}.
+     */
+    static List<Play> flatMap(List<Piece> pieces, Function<Piece, List<Play>> plays, ForkJoinPool pool) {
+        List<Play> result = new ArrayList<>();
+        if (pool == null) {
+            for (Piece piece : pieces) result.addAll(plays.apply(piece));
+            return result;
+        }
+        List<ForkJoinTask<List<Play>>> tasks = new ArrayList<>(pieces.size());
+        for (Piece piece : pieces) tasks.add(ForkJoinTask.adapt(() -> plays.apply(piece)));
+        pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+        for (ForkJoinTask<List<Play>> task : tasks) result.addAll(task.join());
+        return result;
+    }
+
+    private static final class AnyMatchTask extends RecursiveAction {
+
+        private final List<Piece> pieces;
+        private final int from;
+        private final int to;
+        private final BiPredicate<Piece, BooleanSupplier> test;
+        private final AtomicBoolean found;
+
+        private AnyMatchTask(List<Piece> pieces, int from, int to, BiPredicate<Piece, BooleanSupplier> test, AtomicBoolean found) {
+            this.pieces = pieces;
+            this.from = from;
+            this.to = to;
+            this.test = test;
+            this.found = found;
+        }
+
+        @Override
+        protected void compute() {
+            if (found.get()) return;
+            if (to - from <= LEAF_PIECES) {
+                for (int i = from; i < to && !found.get(); i++) {
+                    if (test.test(pieces.get(i), found::get)) found.set(true);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            AnyMatchTask right = new AnyMatchTask(pieces, middle, to, test, found);
+            right.fork();
+            new AnyMatchTask(pieces, from, middle, test, found).compute();
+            // A task that hasn't started yet is dropped, and a running one stops on its next check of found.
+            if (found.get() && right.cancel(false)) return;
+            right.join();
+        }
+    }
+
+}
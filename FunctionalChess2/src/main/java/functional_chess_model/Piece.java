@@ -1,6 +1,8 @@
 package functional_chess_model;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import javax.swing.ImageIcon;
 
@@ -34,6 +36,38 @@ public abstract class Piece implements Serializable {
     public abstract Piece moveTo(Position finPos);
     public abstract ImageIcon toIcon();
 
+    /**
+     * Lists the positions this piece could reach in the given game according
+     * to its way of moving, ignoring if that movement would cause a check.
+     * Every legal movement of the piece ends on one of these positions, but
+     * not every one of them needs to be a legal movement.
+     * @param game {@link Chess} game where {@code this} {@link Piece} is
+     * moving.
+     * @return A list of positions on the board that aren't occupied by pieces
+     * of the same color and that the piece reaches without being blocked.
+     */
+    public abstract List<Position> pseudoLegalPositions(Chess game);
+
+    /**
+     * Generates the legal movements of this piece in the given game.
+     * @param game {@link Chess} game where {@code this} {@link Piece} is
+     * moving.
+     * @return A list of {@link Play}s, one for each position returned by
+     * {@link Piece#pseudoLegalPositions(Chess)} where the movement is legal,
+     * built the same way {@link Chess#tryToMove(Piece, Position, boolean)}
+     * stores them in the play history: storing the piece after moving and the
+     * piece captured, if any.
+     */
+    public List<Play> generateMoves(Chess game) {
+        List<Play> plays = new ArrayList<>();
+        for (Position finPos : pseudoLegalPositions(game)) {
+            if (isLegalMovement(game, finPos)) {
+                plays.add(new Play(moveTo(finPos), position, finPos, game.pieceCapturedByMove(this, finPos).orElse(null)));
+            }
+        }
+        return plays;
+    }
+
     /**
      * Performs some common legality checks that will be referenced by each
      * implementation of {@link Piece#isLegalMovement(Chess, Position, boolean)}. 
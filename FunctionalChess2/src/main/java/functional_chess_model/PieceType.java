@@ -7,27 +7,48 @@ import java.util.function.BiFunction;
 /**
  * Enum class listing all {@link Piece} classes implemented thus far.
  * Each instance of this enum has an attribute being the constructor
- * for Pieces of that variant, a Function&lt;Position, ChessColor, Piece&gt;.
+ * for Pieces of that variant, a Function&lt;Position, ChessColor, Piece&gt;,
+ * along with the class of those Pieces.
  * Royalty of the Piece is assumed by each class's 2-parameter constructor
  * as needed.
  */
 public enum PieceType {
-    AMAZON(Amazon::new),
-    ARCHBISHOP(ArchBishop::new),
-    BISHOP(Bishop::new),
-    CHANCELLOR(Chancellor::new),
-    KING(King::new),
-    KNIGHT(Knight::new),
-    NIGHTRIDER(Nightrider::new),
-    PAWN(Pawn::new),
-    QUEEN(Queen::new),
-    ROOK(Rook::new);
+    AMAZON(Amazon.class, Amazon::new),
+    ARCHBISHOP(ArchBishop.class, ArchBishop::new),
+    BISHOP(Bishop.class, Bishop::new),
+    CHANCELLOR(Chancellor.class, Chancellor::new),
+    KING(King.class, King::new),
+    KNIGHT(Knight.class, Knight::new),
+    NIGHTRIDER(Nightrider.class, Nightrider::new),
+    PAWN(Pawn.class, Pawn::new),
+    QUEEN(Queen.class, Queen::new),
+    ROOK(Rook.class, Rook::new);
 
+    private static final PieceType[] VALUES = values();
+
+    private final Class<? extends Piece> pieceClass;
     private final BiFunction<Position, ChessColor, Piece> constructor;
 
     public Piece constructor(Position pos, ChessColor color) {
         return constructor.apply(pos, color);
     }
 
-    PieceType(BiFunction<Position, ChessColor, Piece> constructor) {this.constructor = constructor;}
+    /**
+     * Gets the type of the given piece.
+     * @param piece {@link Piece} to get the type of.
+     * @return The PieceType whose class is the class of {@code piece}.
+     * @throws IllegalArgumentException If the class of the piece isn't
+     * listed in this enum.
+     */
+    public static PieceType of(Piece piece) {
+        for (PieceType type : VALUES) {
+            if (type.pieceClass == piece.getClass()) return type;
+        }
+        throw new IllegalArgumentException("Unknown piece type: " + piece.getClass().getSimpleName());
+    }
+
+    PieceType(Class<? extends Piece> pieceClass, BiFunction<Position, ChessColor, Piece> constructor) {
+        this.pieceClass = pieceClass;
+        this.constructor = constructor;
+    }
 }
\ No newline at end of file
@@ -2,9 +2,11 @@ package functional_chess_model.Pieces;
 
 import functional_chess_model.Chess;
 import functional_chess_model.ChessColor;
+import functional_chess_model.MovementPattern;
 import functional_chess_model.Piece;
 import functional_chess_model.Position;
 import graphic_resources.ChessImages;
+import java.util.List;
 import javax.swing.ImageIcon;
 
 /**
@@ -27,6 +29,11 @@ public class Bishop extends Piece {
         return game.isPathClear(initPos.x(), initPos.y(), Xmovement, Ymovement);
     }
 
+    @Override
+    public List<Position> pseudoLegalPositions(Chess game) {
+        return game.riderPositions(this, MovementPattern.BISHOP);
+    }
+
     @Override
     public Piece moveTo(Position finPos) {
         return new Bishop(finPos, this.getColor());
@@ -2,9 +2,11 @@ package functional_chess_model.Pieces;
 
 import functional_chess_model.Chess;
 import functional_chess_model.ChessColor;
+import functional_chess_model.MovementPattern;
 import functional_chess_model.Piece;
 import functional_chess_model.Position;
 import graphic_resources.ChessImages;
+import java.util.List;
 import javax.swing.ImageIcon;
 
 /**
@@ -28,6 +30,13 @@ public class Chancellor extends Piece {
         return game.isPathClear(initPos.x(), initPos.y(), Xmovement, Ymovement);
     }
 
+    @Override
+    public List<Position> pseudoLegalPositions(Chess game) {
+        List<Position> positions = game.leaperPositions(this, MovementPattern.KNIGHT);
+        positions.addAll(game.riderPositions(this, MovementPattern.ROOK));
+        return positions;
+    }
+
     @Override
     public Piece moveTo(Position finPos) {
         return new Chancellor(finPos, this.getColor());
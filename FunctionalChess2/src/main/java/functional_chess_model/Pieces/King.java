@@ -1,10 +1,15 @@
 package functional_chess_model.Pieces;
 
+import functional_chess_model.CastlingType;
 import functional_chess_model.Chess;
 import functional_chess_model.ChessColor;
+import functional_chess_model.GameVariant;
+import functional_chess_model.MovementPattern;
 import functional_chess_model.Piece;
+import functional_chess_model.Play;
 import functional_chess_model.Position;
 import graphic_resources.ChessImages;
+import java.util.List;
 import javax.swing.ImageIcon;
 
 /**
@@ -26,6 +31,34 @@ public class King extends Piece {
         return !(Math.abs(Xmovement) > 1 || Math.abs(Ymovement) > 1);
     }
 
+    @Override
+    public List<Position> pseudoLegalPositions(Chess game) {
+        return game.leaperPositions(this, MovementPattern.KING);
+    }
+
+    /**
+     * Generates the legal movements of the King, adding to the ones of
+     * {@link Piece#generateMoves(Chess)} a {@link Play} for each
+     * {@link CastlingType} the King can legally perform from its initial
+     * position.
+     * @param game {@link Chess} game where {@code this} King is moving.
+     * @return A list of the legal {@link Play}s of the King, castling ones
+     * last.
+     */
+    @Override
+    public List<Play> generateMoves(Chess game) {
+        List<Play> plays = super.generateMoves(game);
+        GameVariant variant = game.variant();
+        if (!getPosition().equals(variant.initKingPos(getColor()))) return plays;
+        for (CastlingType type : CastlingType.values()) {
+            Position castlingKingPos = variant.castlingKingPos(type, getColor());
+            if (game.checkPieceAt(variant.initRookPos(type, getColor()))
+                && game.castlingTypeOfPlay(this, castlingKingPos).filter(castlingType -> castlingType == type).isPresent()
+            ) plays.add(new Play(this, getPosition(), castlingKingPos, type));
+        }
+        return plays;
+    }
+
     @Override
     public Piece moveTo(Position finPos) {
         return new King(finPos, this.getColor());
@@ -2,9 +2,11 @@ package functional_chess_model.Pieces;
 
 import functional_chess_model.Chess;
 import functional_chess_model.ChessColor;
+import functional_chess_model.MovementPattern;
 import functional_chess_model.Piece;
 import functional_chess_model.Position;
 import graphic_resources.ChessImages;
+import java.util.List;
 import javax.swing.ImageIcon;
 
 /**
@@ -23,6 +25,11 @@ public class Knight extends Piece {
         return Chess.isKnightLikePath(this.getPosition(), finPos);
     }
 
+    @Override
+    public List<Position> pseudoLegalPositions(Chess game) {
+        return game.leaperPositions(this, MovementPattern.KNIGHT);
+    }
+
     @Override
     public Piece moveTo(Position finPos) {
         return new Knight(finPos, this.getColor());
@@ -2,10 +2,11 @@ package functional_chess_model.Pieces;
 
 import functional_chess_model.Chess;
 import functional_chess_model.ChessColor;
+import functional_chess_model.MovementPattern;
 import functional_chess_model.Piece;
 import functional_chess_model.Position;
 import graphic_resources.ChessImages;
-import java.util.stream.IntStream;
+import java.util.List;
 import javax.swing.ImageIcon;
 
 /**
@@ -21,16 +22,13 @@ public class Nightrider extends Piece {
     @Override
     public boolean isLegalMovement(Chess game, Position finPos, boolean checkCheck) {
         if (!basicLegalityChecks(game, finPos, checkCheck)) return false;
-        Position initPos = this.getPosition();
-        int Xmovement = Position.xDist(initPos, finPos);
-        int Ymovement = Position.yDist(initPos, finPos);
-        if (Xmovement != 2*Ymovement && Ymovement != 2*Xmovement) return false;
-        int elementalXmov = Xmovement % 2 == 0 ? 2 : 1;
-        int elementalYmov = Ymovement % 2 == 0 ? 2 : 1;
-        int steps = Xmovement / elementalXmov;
-        return IntStream.range(1, steps)
-            .mapToObj(n -> Position.of(initPos.x() + n * elementalXmov, initPos.y()+ n * elementalYmov))
-            .noneMatch(game::checkPieceAt);
+        // The movement must be a whole number of Knight-like leaps along the same line.
+        return game.isNightriderPathClear(this.getPosition(), finPos);
+    }
+
+    @Override
+    public List<Position> pseudoLegalPositions(Chess game) {
+        return game.riderPositions(this, MovementPattern.KNIGHT);
     }
 
     @Override
@@ -2,9 +2,14 @@ package functional_chess_model.Pieces;
 
 import functional_chess_model.Chess;
 import functional_chess_model.ChessColor;
+import functional_chess_model.GameVariant;
 import functional_chess_model.Piece;
+import functional_chess_model.PieceType;
+import functional_chess_model.Play;
 import functional_chess_model.Position;
 import graphic_resources.ChessImages;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.OptionalInt;
 import javax.swing.ImageIcon;
 
@@ -48,6 +53,51 @@ public class Pawn extends Piece {
         }
     }
 
+    @Override
+    public List<Position> pseudoLegalPositions(Chess game) {
+        List<Position> positions = new ArrayList<>(4);
+        Position initPos = this.getPosition();
+        int Ydirection = this.getColor().yDirection();
+        int finY = initPos.y() + Ydirection;
+        if (finY < 1 || finY > game.variant().rows()) return positions;
+        for (int Xmovement = -1; Xmovement <= 1; Xmovement++) {
+            int finX = initPos.x() + Xmovement;
+            if (finX < 1 || finX > game.variant().cols()) continue;
+            Position finPos = Position.of(finX, finY);
+            if (!game.checkPieceSameColorAs(finPos, this.getColor())) positions.add(finPos);
+        }
+        int doubleStepY = finY + Ydirection;
+        if (initPos.y() == game.variant().initRowPawn(this.getColor()) && doubleStepY >= 1 && doubleStepY <= game.variant().rows()) {
+            positions.add(Position.of(initPos.x(), doubleStepY));
+        }
+        return positions;
+    }
+
+    /**
+     * Generates the legal movements of the Pawn. Movements reaching the
+     * crowning row are expanded into one {@link Play} for each of the
+     * {@link GameVariant#crownablePieces()}, stored as the play history does
+     * after {@link Chess#crownPawn(Piece, String)}.
+     * @param game {@link Chess} game where {@code this} Pawn is moving.
+     * @return A list of the legal {@link Play}s of the Pawn.
+     */
+    @Override
+    public List<Play> generateMoves(Chess game) {
+        int crowningRow = game.variant().crowningRow(this.getColor());
+        List<Play> plays = new ArrayList<>();
+        for (Play play : super.generateMoves(game)) {
+            if (play.finPos().y() != crowningRow) {
+                plays.add(play);
+                continue;
+            }
+            for (String crownableType : game.variant().crownablePieces()) {
+                Piece crownedPiece = PieceType.valueOf(crownableType.toUpperCase()).constructor(play.finPos(), this.getColor());
+                plays.add(new Play(play.piece(), play.initPos(), play.finPos(), play.pieceCaptured(), crownedPiece));
+            }
+        }
+        return plays;
+    }
+
     @Override
     public Piece moveTo(Position finPos) {
         return new Pawn(finPos, this.getColor());
@@ -0,0 +1,134 @@
+package functional_chess_model;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Immutable {@link List} of the {@link Play}s of a {@link Chess} game, stored
+ * as a persistent linked list where each node holds the last play and the
+ * history before it.
+ * <br><br>
+ * Adding a play creates a single node pointing to the previous history, which
+ * is shared instead of copied, so every state of a game takes constant time
+ * and memory to derive from the previous one, and the last play, the one the
+ * rules look at, is found in constant time. Reading the history from the
+ * first play walks it back into an array, which is what the GUI and the
+ * equality of games need. It's serialized as a plain immutable list, so it
+ * doesn't change the saved games format.
+ * @author Alfonso Gallego
+ */
+final class PlayHistory extends AbstractList<Play> implements Serializable {
+
+    private static final PlayHistory EMPTY = new PlayHistory(null, null, 0);
+
+    private final Play last;
+    /**
+     * History before the last play, or {@code null} if this is the empty one.
+     */
+    private final PlayHistory previous;
+    private final int size;
+
+    private PlayHistory(Play last, PlayHistory previous, int size) {
+        this.last = last;
+        this.previous = previous;
+        this.size = size;
+    }
+
+    /**
+     * Gets a PlayHistory with the given plays.
+     * @param plays {@link List} of {@link Play}s done in the game, in order.
+     * @return {@code plays} itself if it already is a PlayHistory, or a new
+     * one with the same plays otherwise.
+     */
+    static PlayHistory of(List<Play> plays) {
+        if (plays instanceof PlayHistory history) return history;
+        PlayHistory history = EMPTY;
+        for (Play play : plays) history = history.append(play);
+        return history;
+    }
+
+    /**
+     * Adds a play at the end of the history.
+     * @param play {@link Play} to add.
+     * @return A new PlayHistory sharing this one, with {@code play} as its
+     * last play.
+     */
+    PlayHistory append(Play play) {
+        return new PlayHistory(Objects.requireNonNull(play), this, size + 1);
+    }
+
+    /**
+     * Replaces the last play of the history.
+     * @param play {@link Play} to put in place of the last one.
+     * @return A new PlayHistory sharing the history before the last play,
+     * with {@code play} as its last play.
+     * @throws NoSuchElementException If the history is empty.
+     */
+    PlayHistory withLast(Play play) {
+        if (size == 0) throw new NoSuchElementException("There's no play to replace");
+        return previous.append(play);
+    }
+
+    @Override
+    public Play getLast() {
+        if (size == 0) throw new NoSuchElementException();
+        return last;
+    }
+
+    @Override
+    public Play get(int index) {
+        Objects.checkIndex(index, size);
+        PlayHistory node = this;
+        for (int i = size - 1; i > index; i--) node = node.previous;
+        return node.last;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Object[] toArray() {
+        Object[] plays = new Object[size];
+        PlayHistory node = this;
+        for (int i = size - 1; i >= 0; i--) {
+            plays[i] = node.last;
+            node = node.previous;
+        }
+        return plays;
+    }
+
+    /**
+     * Iterates over a snapshot of the plays taken in a single walk back,
+     * instead of walking back to each index.
+     */
+    @Override
+    public ListIterator<Play> listIterator(int index) {
+        @SuppressWarnings("unchecked")
+        List<Play> plays = (List<Play>) (List<?>) Arrays.asList(toArray());
+        return Collections.unmodifiableList(plays).listIterator(index);
+    }
+
+    @Override
+    public Iterator<Play> iterator() {
+        return listIterator(0);
+    }
+
+    /**
+     * Serializes the PlayHistory as a plain immutable list of its plays, the
+     * linked list being rebuilt by {@link Chess} when it's read back.
+     * @return An immutable copy of the list of plays.
+     */
+    private Object writeReplace() {
+        return List.copyOf(this);
+    }
+
+}
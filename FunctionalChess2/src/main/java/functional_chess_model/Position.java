@@ -13,6 +13,22 @@ import java.util.Objects;
  */
 public record Position(int x, int y) implements Serializable {
     
+    /**
+     * Number of columns and rows of the table of shared Positions, one for
+     * each letter the columns can be named with.
+     */
+    private static final int CACHED_SIZE = 26;
+    /**
+     * Shared Positions, indexed by {@code (y - 1) * CACHED_SIZE + (x - 1)}.
+     */
+    private static final Position[] CACHE = new Position[CACHED_SIZE * CACHED_SIZE];
+    
+    static {
+        for (int y = 1; y <= CACHED_SIZE; y++) {
+            for (int x = 1; x <= CACHED_SIZE; x++) CACHE[(y - 1) * CACHED_SIZE + (x - 1)] = new Position(x, y);
+        }
+    }
+    
     /**
      * Static factory method to create new Positions from a String representing
      * the position in algebraic chess notation (A1, A2, etc.)
@@ -34,7 +50,7 @@ public record Position(int x, int y) implements Serializable {
             if (pos.length()!=2) throw new IllegalArgumentException("The specified String doesn't have length 2.");
             final int x = convertLetterToNumber(pos.charAt(0));
             final int y = Integer.parseInt(""+pos.charAt(1));
-            if (x >= 1 && y >= 1) return new Position(x, y);
+            if (x >= 1 && y >= 1) return of(x, y);
             else throw new IllegalArgumentException(pos+" represents coordinates ("+x+", "+y+"), which are outside the chess board");
         } catch (IllegalArgumentException e) {
             System.err.println("Error occurred while trying to create the position with value: " + pos + " " + e.getMessage());
@@ -47,16 +63,31 @@ public record Position(int x, int y) implements Serializable {
      * representing the X and Y coordinates of the Position.
      * @param x X coordinate of the new Position.
      * @param y Y coordinate of the new Position.
-     * @return Returns a new Position constructed by storing the two integers
-     * as the X and Y coordinate.
-     * If supposed new Position is not within the Chess board, an error message
-     * is printed and {@code null} is returned.
+     * @return Returns a Position storing the two integers as the X and Y
+     * coordinate. Positions with both coordinates up to 26, which covers
+     * every board size, are shared instances created once, so this method
+     * doesn't allocate for them.
+     * @throws IllegalArgumentException If any of the coordinates is lower
+     * than 1.
      */
     public static Position of(int x, int y) {
-        if (x >= 1 && y >= 1) return new Position(x, y);
+        if (x >= 1 && y >= 1) {
+            if (x <= CACHED_SIZE && y <= CACHED_SIZE) return CACHE[(y - 1) * CACHED_SIZE + (x - 1)];
+            return new Position(x, y);
+        }
         else throw new IllegalArgumentException("Coordinates ("+x+", "+y+") are outside the chess board");
     }
     
+    /**
+     * Replaces each Position read from a saved game with the shared instance
+     * of the same coordinates.
+     * @return The Position {@link #of(int, int)} returns for the coordinates
+     * read.
+     */
+    private Object readResolve() {
+        return x >= 1 && y >= 1 ? of(x, y) : this;
+    }
+    
     /**
      * Calculates the signed distance in the X axis between two positions.
      * @param initPos The initial position.
@@ -79,6 +110,23 @@ public record Position(int x, int y) implements Serializable {
         return finPos.y - initPos.y;
     }
 
+    /**
+     * Compares the coordinates of two Positions, checking first whether
+     * they're the same instance, which is the case for any two shared
+     * Positions that are equal.
+     * @param o Object to compare with.
+     * @return True if {@code o} is a Position with the same coordinates.
+     */
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof Position pos && x == pos.x && y == pos.y);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * x + y;
+    }
+
     /**
      * Represents the Position using the algebraic chess notation, A1, A2, etc.
      * @return Returns a String whose first character is the x coordinate of the
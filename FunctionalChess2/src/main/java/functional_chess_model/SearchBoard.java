@@ -0,0 +1,920 @@
+package functional_chess_model;
+
+import functional_chess_model.Pieces.Pawn;
+
+import java.util.Arrays;
+import java.util.function.ToIntFunction;
+
+/**
+ * Mutable board built from a {@link Chess} game to explore the plays that
+ * follow it without creating a new game on each of them. Movements are
+ * performed with {@link SearchBoard#makeMove(int)} and taken back with
+ * {@link SearchBoard#unmakeMove()}, which pops them from an undo stack, so a
+ * search can go down and up the tree of plays reusing the same board.
+ * <br><br>
+ * The rules are the same ones {@link Chess} follows, including the way it
+ * decides castling and en passant captures, and the legal movements listed by
+ * {@link SearchBoard#legalMoves(int[])} are the same ones
+ * {@link Chess#legalMoves()} lists. Once the search is done,
+ * {@link SearchBoard#toChess()} gets back the game reached.
+ * <br><br>
+ * Movements are encoded as {@code int}s: the index of the initial and final
+ * squares (as in {@link BoardGeometry}), the {@link PieceType} a
+ * {@link Pawn} is crowned into, the
+ * {@link CastlingType} of a castling and whether it's an en passant capture.
+ * Pieces are stored as {@code byte} codes, 0 being an empty square.
+ * <br><br>
+ * A SearchBoard isn't thread-safe: each thread exploring a game needs its own.
+ * @author Alfonso Gallego
+ */
+public final class SearchBoard {
+
+    /**
+     * Length the arrays passed to {@link SearchBoard#legalMoves(int[])} need
+     * to have to hold the movements of any position.
+     */
+    public static final int MAX_MOVES = 1024;
+
+    private static final PieceType[] TYPES = PieceType.values();
+    private static final ChessColor[] COLORS = ChessColor.values();
+    private static final CastlingType[] CASTLING_TYPES = CastlingType.values();
+    private static final MovementPattern[] NONE = {};
+    /**
+     * Lines going out of a square along which it can be attacked.
+     */
+    private static final MovementPattern[] ATTACK_LINES = {MovementPattern.KING, MovementPattern.KNIGHT};
+    /**
+     * Steps leaped and ridden by each {@link PieceType}, indexed by ordinal.
+     */
+    private static final MovementPattern[][] LEAPS = new MovementPattern[TYPES.length][];
+    private static final MovementPattern[][] RIDES = new MovementPattern[TYPES.length][];
+
+    static {
+        for (PieceType type : TYPES) {
+            LEAPS[type.ordinal()] = switch (type) {
+                case KNIGHT, AMAZON, ARCHBISHOP, CHANCELLOR -> new MovementPattern[] {MovementPattern.KNIGHT};
+                case KING -> new MovementPattern[] {MovementPattern.KING};
+                default -> NONE;
+            };
+            RIDES[type.ordinal()] = switch (type) {
+                case ROOK, CHANCELLOR -> new MovementPattern[] {MovementPattern.ROOK};
+                case BISHOP, ARCHBISHOP -> new MovementPattern[] {MovementPattern.BISHOP};
+                case QUEEN, AMAZON -> new MovementPattern[] {MovementPattern.KING};
+                case NIGHTRIDER -> new MovementPattern[] {MovementPattern.KNIGHT};
+                default -> NONE;
+            };
+        }
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="Move encoding">
+
+    private static final int SQUARE_MASK = 0x7F;
+    private static final int TO_SHIFT = 7;
+    private static final int CROWN_SHIFT = 14;
+    private static final int CASTLING_SHIFT = 18;
+    private static final int EN_PASSANT_FLAG = 1 << 20;
+
+    private static int encode(int from, int to) {
+        return from | to << TO_SHIFT;
+    }
+
+    /**
+     * Gets the initial square of an encoded movement.
+     * @param move Encoded movement.
+     * @return Index of the square the movement starts from.
+     */
+    public static int moveFrom(int move) {return move & SQUARE_MASK;}
+
+    /**
+     * Gets the final square of an encoded movement.
+     * @param move Encoded movement.
+     * @return Index of the square the movement ends on. For castling, it's
+     * the square the King ends on.
+     */
+    public static int moveTo(int move) {return move >>> TO_SHIFT & SQUARE_MASK;}
+
+    /**
+     * Gets the type a pawn is crowned into in an encoded movement.
+     * @param move Encoded movement.
+     * @return The {@link PieceType} the pawn is crowned into, or {@code null}
+     * if there's no crowning.
+     */
+    public static PieceType moveCrowning(int move) {
+        int crowning = move >>> CROWN_SHIFT & 0xF;
+        return crowning == 0 ? null : TYPES[crowning - 1];
+    }
+
+    /**
+     * Gets the kind of castling of an encoded movement.
+     * @param move Encoded movement.
+     * @return The {@link CastlingType} performed, or {@code null} if the
+     * movement isn't a castling.
+     */
+    public static CastlingType moveCastling(int move) {
+        int castling = move >>> CASTLING_SHIFT & 0x3;
+        return castling == 0 ? null : CASTLING_TYPES[castling - 1];
+    }
+
+    /**
+     * Checks whether an encoded movement is an en passant capture.
+     * @param move Encoded movement.
+     * @return True if the movement captures a pawn en passant.
+     */
+    public static boolean isEnPassant(int move) {return (move & EN_PASSANT_FLAG) != 0;}
+
+    //</editor-fold>
+
+    private final Chess origin;
+    private final GameVariant variant;
+    private final BoardGeometry geometry;
+    private final ZobristKeys zobristKeys;
+    private final int rows;
+    /**
+     * Code of the piece on each square, 0 if it's empty.
+     */
+    private final byte[] board;
+    /**
+     * Ordinals of the types pawns can be crowned into in the variant.
+     */
+    private final int[] crownableTypes;
+    /**
+     * Square of the royal piece of each color, -1 if it has none.
+     */
+    private final int[] royalSquares = new int[COLORS.length];
+
+    private ChessColor activePlayer;
+    /**
+     * Availability of castling, one bit per {@link ChessColor} and
+     * {@link CastlingType}.
+     */
+    private int castlingRights;
+    /**
+     * Square of the pawn that moved two rows on the last movement, which may
+     * be captured en passant, or -1 if the last movement wasn't one.
+     */
+    private int enPassantSquare;
+    /**
+     * XOR of the Zobrist keys of every piece on its square.
+     */
+    private long pieceKey;
+
+    // Undo stack, one entry per movement made.
+    private int ply;
+    private int[] moveStack = new int[64];
+    private int[] capturedStack = new int[64];
+    private int[] castlingStack = new int[64];
+    private int[] enPassantStack = new int[64];
+    private long[] pieceKeyStack = new long[64];
+
+    /**
+     * Listener of the changes of the pieces, or {@code null} if there's none.
+     */
+    private BoardListener listener;
+
+    // Scratch space of the static exchange evaluation.
+    private final boolean[] exchanged;
+    private final int[] exchangeGains;
+
+    private SearchBoard(Chess origin) {
+        this.origin = origin;
+        this.variant = origin.variant();
+        this.geometry = BoardGeometry.of(variant);
+        this.zobristKeys = ZobristKeys.of(variant);
+        this.rows = variant.rows();
+        this.board = new byte[rows * variant.cols()];
+        this.exchanged = new boolean[board.length];
+        this.exchangeGains = new int[board.length + 1];
+        this.crownableTypes = Arrays.stream(variant.crownablePieces())
+            .mapToInt(name -> PieceType.valueOf(name.toUpperCase()).ordinal())
+            .toArray();
+        Arrays.fill(royalSquares, -1);
+        for (Piece piece : origin.pieces()) {
+            int square = geometry.index(piece.getPosition());
+            board[square] = code(piece.getColor().ordinal(), PieceType.of(piece).ordinal());
+            pieceKey ^= pieceKey(board[square], square);
+            if (piece.isRoyal() && royalSquares[piece.getColor().ordinal()] < 0) royalSquares[piece.getColor().ordinal()] = square;
+        }
+        this.activePlayer = origin.activePlayer();
+        this.castlingRights = origin.castlingRights().bits();
+        this.enPassantSquare = origin.getLastPlay()
+            .filter(play -> play.piece() instanceof Pawn && Math.abs(Position.yDist(play.initPos(), play.finPos())) == 2)
+            .map(play -> geometry.index(play.finPos()))
+            .orElse(-1);
+    }
+
+    /**
+     * Static factory method to create a SearchBoard from a game.
+     * @param game {@link Chess} game to copy the position of.
+     * @return A new SearchBoard with the pieces, active player, castling
+     * availability and en passant possibilities of {@code game}, and an empty
+     * undo stack.
+     */
+    public static SearchBoard of(Chess game) {
+        return new SearchBoard(game);
+    }
+
+    /**
+     * Gets the position of a square of the boards of a variant.
+     * @param variant {@link GameVariant} of the board.
+     * @param square Index of the square.
+     * @return The {@link Position} of the square.
+     */
+    public static Position positionOf(GameVariant variant, int square) {
+        BoardGeometry geometry = BoardGeometry.of(variant);
+        return Position.of(geometry.x(square), geometry.y(square));
+    }
+
+    /**
+     * Sets the listener of the pieces added and removed by each movement made
+     * and taken back from now on, replacing the previous one. The listener
+     * is told first about every piece already on the board, as if they were
+     * added.
+     * @param listener {@link BoardListener} to set, or {@code null} to remove
+     * the current one.
+     */
+    public void setListener(BoardListener listener) {
+        this.listener = listener;
+        for (int square = 0; square < board.length; square++) {
+            if (board[square] != 0) added(board[square], square);
+        }
+    }
+
+    //<editor-fold defaultstate="collapsed" desc="Getters">
+
+    public GameVariant variant() {return variant;}
+    public ChessColor activePlayer() {return activePlayer;}
+
+    /**
+     * Getter for the number of squares of the board.
+     * @return The number of indexes {@link SearchBoard#typeAt(int)} accepts.
+     */
+    public int squares() {return board.length;}
+
+    /**
+     * Getter for the number of movements made since the board was built.
+     * @return The size of the undo stack.
+     */
+    public int ply() {return ply;}
+
+    /**
+     * Gets the type of the piece on a square.
+     * @param square Index of the square.
+     * @return The {@link PieceType} of the piece on it, or {@code null} if
+     * it's empty.
+     */
+    public PieceType typeAt(int square) {
+        return board[square] == 0 ? null : TYPES[typeOf(board[square])];
+    }
+
+    /**
+     * Gets the color of the piece on a square.
+     * @param square Index of the square.
+     * @return The {@link ChessColor} of the piece on it, or {@code null} if
+     * it's empty.
+     */
+    public ChessColor colorAt(int square) {
+        return board[square] == 0 ? null : COLORS[colorOf(board[square])];
+    }
+
+    /**
+     * Checks whether the given player is in check.
+     * @param color {@link ChessColor} of the player.
+     * @return True if its royal piece is attacked by a piece of the opposite
+     * color, false otherwise or if it has no royal piece.
+     */
+    public boolean isInCheck(ChessColor color) {
+        int royalSquare = royalSquares[color.ordinal()];
+        return royalSquare >= 0 && isAttacked(royalSquare, color.opposite().ordinal());
+    }
+
+    /**
+     * Gets the Zobrist key of the current position.
+     * @return The same key {@link Chess#zobristKey()} returns for the game
+     * this position corresponds to. The keys of the pieces are updated with
+     * each movement made and restored from the undo stack when it's taken
+     * back.
+     */
+    public long zobristKey() {
+        long key = pieceKey ^ zobristKeys.side(activePlayer);
+        for (ChessColor color : COLORS) {
+            for (CastlingType type : CASTLING_TYPES) {
+                if ((castlingRights & castlingBit(color.ordinal(), type)) != 0) key ^= zobristKeys.castling(color, type);
+            }
+        }
+        if (enPassantSquare >= 0 && typeOf(board[enPassantSquare]) == PieceType.PAWN.ordinal()) {
+            int x = geometry.x(enPassantSquare);
+            int y = geometry.y(enPassantSquare);
+            for (int xDir = -1; xDir <= 1; xDir += 2) {
+                if (!geometry.isInside(x + xDir, y)) continue;
+                byte neighbour = board[geometry.index(x + xDir, y)];
+                if (neighbour != 0 && typeOf(neighbour) == PieceType.PAWN.ordinal() && colorOf(neighbour) != colorOf(board[enPassantSquare])) return key ^ zobristKeys.enPassant(x);
+            }
+        }
+        return key;
+    }
+
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Make and unmake">
+
+    /**
+     * Performs a movement, pushing what's needed to take it back onto the
+     * undo stack.
+     * @param move Encoded movement, which must be one of the movements
+     * returned by {@link SearchBoard#legalMoves(int[])} for the current
+     * position.
+     */
+    public void makeMove(int move) {
+        if (ply == moveStack.length) growStacks();
+        int from = moveFrom(move);
+        int to = moveTo(move);
+        byte code = board[from];
+        int color = colorOf(code);
+        moveStack[ply] = move;
+        castlingStack[ply] = castlingRights;
+        enPassantStack[ply] = enPassantSquare;
+        pieceKeyStack[ply] = pieceKey;
+        capturedStack[ply] = 0;
+
+        CastlingType castlingType = moveCastling(move);
+        if (castlingType != null) {
+            int rookFrom = geometry.index(variant.initRookPos(castlingType, COLORS[color]));
+            int rookTo = geometry.index(variant.castlingRookPos(castlingType, COLORS[color]));
+            byte rookCode = board[rookFrom];
+            board[from] = 0;
+            board[rookFrom] = 0;
+            board[to] = code;
+            board[rookTo] = rookCode;
+            pieceKey ^= pieceKey(code, from) ^ pieceKey(code, to) ^ pieceKey(rookCode, rookFrom) ^ pieceKey(rookCode, rookTo);
+            if (listener != null) {
+                removed(code, from);
+                removed(rookCode, rookFrom);
+                added(code, to);
+                added(rookCode, rookTo);
+            }
+            royalSquares[color] = to;
+            for (CastlingType type : CASTLING_TYPES) castlingRights &= ~castlingBit(color, type);
+            enPassantSquare = -1;
+        } else {
+            int capturedSquare = isEnPassant(move) ? enPassantSquare : to;
+            byte capturedCode = board[capturedSquare];
+            if (capturedCode != 0) {
+                capturedStack[ply] = capturedCode | capturedSquare << 8;
+                board[capturedSquare] = 0;
+                pieceKey ^= pieceKey(capturedCode, capturedSquare);
+                if (listener != null) removed(capturedCode, capturedSquare);
+                if (royalSquares[colorOf(capturedCode)] == capturedSquare) royalSquares[colorOf(capturedCode)] = -1;
+            }
+            PieceType crowning = moveCrowning(move);
+            board[from] = 0;
+            board[to] = crowning == null ? code : code(color, crowning.ordinal());
+            pieceKey ^= pieceKey(code, from) ^ pieceKey(board[to], to);
+            if (listener != null) {
+                removed(code, from);
+                added(board[to], to);
+            }
+            if (royalSquares[color] == from) royalSquares[color] = to;
+            updateCastlingRights(color, from, capturedCode, capturedSquare);
+            enPassantSquare = typeOf(code) == PieceType.PAWN.ordinal() && Math.abs(geometry.y(to) - geometry.y(from)) == 2 ? to : -1;
+        }
+        activePlayer = activePlayer.opposite();
+        ply++;
+    }
+
+    /**
+     * Takes back the last movement made, popping it from the undo stack.
+     * @throws IllegalStateException If no movement has been made.
+     */
+    public void unmakeMove() {
+        if (ply == 0) throw new IllegalStateException("There's no movement to take back");
+        ply--;
+        int move = moveStack[ply];
+        int from = moveFrom(move);
+        int to = moveTo(move);
+        byte code = board[to];
+        int color = colorOf(code);
+
+        CastlingType castlingType = moveCastling(move);
+        if (castlingType != null) {
+            int rookFrom = geometry.index(variant.initRookPos(castlingType, COLORS[color]));
+            int rookTo = geometry.index(variant.castlingRookPos(castlingType, COLORS[color]));
+            byte rookCode = board[rookTo];
+            board[to] = 0;
+            board[rookTo] = 0;
+            board[from] = code;
+            board[rookFrom] = rookCode;
+            if (listener != null) {
+                removed(code, to);
+                removed(rookCode, rookTo);
+                added(code, from);
+                added(rookCode, rookFrom);
+            }
+            royalSquares[color] = from;
+        } else {
+            board[to] = 0;
+            board[from] = moveCrowning(move) == null ? code : code(color, PieceType.PAWN.ordinal());
+            if (listener != null) {
+                removed(code, to);
+                added(board[from], from);
+            }
+            if (royalSquares[color] == to) royalSquares[color] = from;
+            int captured = capturedStack[ply];
+            if (captured != 0) {
+                byte capturedCode = (byte) (captured & 0xFF);
+                int capturedSquare = captured >>> 8;
+                board[capturedSquare] = capturedCode;
+                if (listener != null) added(capturedCode, capturedSquare);
+                if (TYPES[typeOf(capturedCode)] == PieceType.KING && royalSquares[colorOf(capturedCode)] < 0) royalSquares[colorOf(capturedCode)] = capturedSquare;
+            }
+        }
+        castlingRights = castlingStack[ply];
+        enPassantSquare = enPassantStack[ply];
+        pieceKey = pieceKeyStack[ply];
+        activePlayer = activePlayer.opposite();
+    }
+
+    /**
+     * Updates the castling availability after a movement, the same way
+     * {@link Chess} does: moving from the initial square of the King or a
+     * Rook forbids the castling they're part of, and so does losing the piece
+     * on the initial square of a Rook.
+     */
+    private void updateCastlingRights(int color, int from, byte capturedCode, int capturedSquare) {
+        for (CastlingType type : CASTLING_TYPES) {
+            int bit = castlingBit(color, type);
+            if ((castlingRights & bit) != 0 && (from == geometry.index(variant.initRookPos(type, COLORS[color])) || from == geometry.index(variant.initKingPos(COLORS[color])))) {
+                castlingRights &= ~bit;
+            }
+            if (capturedCode == 0) continue;
+            int capturedColor = colorOf(capturedCode);
+            if (capturedSquare == geometry.index(variant.initRookPos(type, COLORS[capturedColor]))) castlingRights &= ~castlingBit(capturedColor, type);
+        }
+    }
+
+    private void growStacks() {
+        moveStack = Arrays.copyOf(moveStack, moveStack.length * 2);
+        capturedStack = Arrays.copyOf(capturedStack, capturedStack.length * 2);
+        castlingStack = Arrays.copyOf(castlingStack, castlingStack.length * 2);
+        enPassantStack = Arrays.copyOf(enPassantStack, enPassantStack.length * 2);
+        pieceKeyStack = Arrays.copyOf(pieceKeyStack, pieceKeyStack.length * 2);
+    }
+
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Move generation">
+
+    /**
+     * Generates the legal movements of the active player.
+     * @param moves Array where the encoded movements are stored, of length
+     * {@link SearchBoard#MAX_MOVES} at least.
+     * @return The number of movements stored, from the start of the array.
+     */
+    public int legalMoves(int[] moves) {
+        int color = activePlayer.ordinal();
+        int count = pseudoLegalMoves(moves, color);
+        int legal = 0;
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            if (moveCastling(move) == null) {
+                makeMove(move);
+                boolean leavesCheck = isInCheck(COLORS[color]);
+                unmakeMove();
+                if (leavesCheck) continue;
+            }
+            moves[legal++] = move;
+        }
+        return legal;
+    }
+
+    /**
+     * Generates the movements of the pieces of a color ignoring the checks
+     * they cause, except castling, which is only generated when legal.
+     */
+    private int pseudoLegalMoves(int[] moves, int color) {
+        int count = 0;
+        for (int from = 0; from < board.length; from++) {
+            byte code = board[from];
+            if (code == 0 || colorOf(code) != color) continue;
+            int type = typeOf(code);
+            int x = geometry.x(from);
+            int y = geometry.y(from);
+            if (type == PieceType.PAWN.ordinal()) {
+                count = pawnMoves(moves, count, from, color);
+                continue;
+            }
+            for (MovementPattern pattern : LEAPS[type]) {
+                for (int i = 0; i < pattern.size(); i++) {
+                    int toX = x + pattern.xStep(i);
+                    int toY = y + pattern.yStep(i);
+                    if (!geometry.isInside(toX, toY)) continue;
+                    int to = geometry.index(toX, toY);
+                    if (board[to] == 0 || colorOf(board[to]) != color) moves[count++] = encode(from, to);
+                }
+            }
+            for (MovementPattern pattern : RIDES[type]) {
+                for (int i = 0; i < pattern.size(); i++) {
+                    for (int to : geometry.ray(pattern, from, i)) {
+                        if (board[to] == 0 || colorOf(board[to]) != color) moves[count++] = encode(from, to);
+                        if (board[to] != 0) break;
+                    }
+                }
+            }
+            if (type == PieceType.KING.ordinal()) count = castlingMoves(moves, count, from, color);
+        }
+        return count;
+    }
+
+    private int pawnMoves(int[] moves, int count, int from, int color) {
+        ChessColor pawnColor = COLORS[color];
+        int direction = pawnColor.yDirection();
+        int x = geometry.x(from);
+        int y = geometry.y(from);
+        int toY = y + direction;
+        if (toY < 1 || toY > rows) return count;
+
+        int oneStep = geometry.index(x, toY);
+        if (board[oneStep] == 0) {
+            count = addPawnMove(moves, count, encode(from, oneStep), toY, color);
+            int twoStepsY = toY + direction;
+            if (y == variant.initRowPawn(pawnColor) && twoStepsY >= 1 && twoStepsY <= rows && board[geometry.index(x, twoStepsY)] == 0) {
+                count = addPawnMove(moves, count, encode(from, geometry.index(x, twoStepsY)), twoStepsY, color);
+            }
+        }
+        for (int xMovement = -1; xMovement <= 1; xMovement += 2) {
+            if (!geometry.isInside(x + xMovement, toY)) continue;
+            int to = geometry.index(x + xMovement, toY);
+            if (board[to] != 0) {
+                if (colorOf(board[to]) != color) count = addPawnMove(moves, count, encode(from, to), toY, color);
+            } else if (enPassantXDir(from, color) == xMovement) {
+                count = addPawnMove(moves, count, encode(from, to) | EN_PASSANT_FLAG, toY, color);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Adds a pawn movement, expanded into one movement per crownable type if
+     * it reaches the crowning row.
+     */
+    private int addPawnMove(int[] moves, int count, int move, int toY, int color) {
+        if (toY != variant.crowningRow(COLORS[color])) {
+            moves[count++] = move;
+            return count;
+        }
+        for (int type : crownableTypes) moves[count++] = move | (type + 1) << CROWN_SHIFT;
+        return count;
+    }
+
+    /**
+     * Gets the direction in the X axis a pawn needs to move to capture en
+     * passant, like {@link Chess#getEnPassantXDir(Piece)} does, also
+     * requiring it to be on the same row as the pawn captured.
+     * @return +1 or -1, or 0 if the pawn can't capture en passant.
+     */
+    private int enPassantXDir(int from, int color) {
+        if (enPassantSquare < 0) return 0;
+        byte code = board[enPassantSquare];
+        if (code == 0 || typeOf(code) != PieceType.PAWN.ordinal() || colorOf(code) == color) return 0;
+        int xDir = geometry.x(enPassantSquare) - geometry.x(from);
+        if (Math.abs(xDir) != 1 || geometry.y(enPassantSquare) != geometry.y(from)) return 0;
+        return xDir;
+    }
+
+    /**
+     * Adds the castling movements of a King on its initial square, with the
+     * same conditions as {@link Chess#castlingTypeOfPlay(Piece, Position)}
+     * and {@link Chess#tryToCastle(ChessColor, CastlingType)}.
+     */
+    private int castlingMoves(int[] moves, int count, int from, int color) {
+        ChessColor kingColor = COLORS[color];
+        if (from != geometry.index(variant.initKingPos(kingColor))) return count;
+        int row = variant.initRow(kingColor);
+        for (CastlingType type : CASTLING_TYPES) {
+            if ((castlingRights & castlingBit(color, type)) == 0) continue;
+            if (board[geometry.index(variant.initRookPos(type, kingColor))] == 0) continue;
+            int emptyFrom = type == CastlingType.LEFT ? variant.initRookCol(type) + 1 : variant.castlingRookCol(type);
+            int emptyTo = type == CastlingType.LEFT ? variant.castlingRookCol(type) : variant.initRookCol(type) - 1;
+            int safeFrom = Math.min(variant.castlingKingCol(type), variant.kingInitCol());
+            int safeTo = Math.max(variant.castlingKingCol(type), variant.kingInitCol());
+            boolean allowed = true;
+            for (int x = emptyFrom; x <= emptyTo && allowed; x++) allowed = board[geometry.index(x, row)] == 0;
+            for (int x = safeFrom; x <= safeTo && allowed; x++) allowed = !isThreatenedForCastling(geometry.index(x, row), color);
+            if (allowed) moves[count++] = encode(from, geometry.index(variant.castlingKingPos(type, kingColor))) | (type.ordinal() + 1) << CASTLING_SHIFT;
+        }
+        return count;
+    }
+
+    /**
+     * Checks whether any enemy piece could move to a square the King crosses
+     * while castling, or is a pawn diagonally adjacent to it.
+     */
+    private boolean isThreatenedForCastling(int square, int color) {
+        for (int from = 0; from < board.length; from++) {
+            byte code = board[from];
+            if (code == 0 || colorOf(code) == color) continue;
+            if (canMoveTo(from, square)) return true;
+            if (typeOf(code) == PieceType.PAWN.ordinal()
+                && Math.abs(geometry.x(square) - geometry.x(from)) == 1
+                && Math.abs(geometry.y(square) - geometry.y(from)) == 1) return true;
+        }
+        return false;
+    }
+
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Attacks">
+
+    /**
+     * Checks whether the piece on a square could move to another one ignoring
+     * checks, as {@link Piece#isLegalMovement(Chess, Position, boolean)} does
+     * with {@code checkCheck} false.
+     */
+    private boolean canMoveTo(int from, int to) {
+        if (from == to) return false;
+        byte code = board[from];
+        int color = colorOf(code);
+        if (board[to] != 0 && colorOf(board[to]) == color) return false;
+        int xMovement = geometry.x(to) - geometry.x(from);
+        int yMovement = geometry.y(to) - geometry.y(from);
+        boolean knightLike = Chess.isKnightLikePath(xMovement, yMovement);
+        return switch (TYPES[typeOf(code)]) {
+            case KNIGHT -> knightLike;
+            case KING -> Math.abs(xMovement) <= 1 && Math.abs(yMovement) <= 1;
+            case ROOK -> Chess.isRookLikePath(xMovement, yMovement) && isPathClear(from, xMovement, yMovement);
+            case BISHOP -> Chess.isBishopLikePath(xMovement, yMovement) && isPathClear(from, xMovement, yMovement);
+            case QUEEN -> isPathClear(from, xMovement, yMovement);
+            case AMAZON -> knightLike || isPathClear(from, xMovement, yMovement);
+            case ARCHBISHOP -> knightLike || (Chess.isBishopLikePath(xMovement, yMovement) && isPathClear(from, xMovement, yMovement));
+            case CHANCELLOR -> knightLike || (Chess.isRookLikePath(xMovement, yMovement) && isPathClear(from, xMovement, yMovement));
+            case NIGHTRIDER -> isNightriderPathClear(from, xMovement, yMovement);
+            case PAWN -> canPawnMoveTo(from, to, color, xMovement, yMovement);
+        };
+    }
+
+    private boolean canPawnMoveTo(int from, int to, int color, int xMovement, int yMovement) {
+        int direction = COLORS[color].yDirection();
+        if (yMovement * direction <= 0) return false;
+        if (board[to] != 0) return Math.abs(xMovement) == 1 && Math.abs(yMovement) == 1;
+        if (xMovement != 0) {
+            int xDir = enPassantXDir(from, color);
+            return xDir != 0 && Math.abs(yMovement) == 1 && xMovement == xDir;
+        }
+        if (Math.abs(yMovement) > 2) return false;
+        if (Math.abs(yMovement) == 2 && board[geometry.index(geometry.x(from), geometry.y(from) + direction)] != 0) return false;
+        return geometry.y(from) == variant.initRowPawn(COLORS[color]) || Math.abs(yMovement) <= 1;
+    }
+
+    private boolean isPathClear(int from, int xMovement, int yMovement) {
+        if (!Chess.isRookLikePath(xMovement, yMovement) && !Chess.isBishopLikePath(xMovement, yMovement)) return false;
+        int[] ray = geometry.queenRay(from, BoardGeometry.queenDirection(Integer.compare(xMovement, 0), Integer.compare(yMovement, 0)));
+        for (int n = 0; n < Math.max(Math.abs(xMovement), Math.abs(yMovement)) - 1; n++) {
+            if (board[ray[n]] != 0) return false;
+        }
+        return true;
+    }
+
+    private boolean isNightriderPathClear(int from, int xMovement, int yMovement) {
+        if (Math.abs(xMovement) != 2 * Math.abs(yMovement) && Math.abs(yMovement) != 2 * Math.abs(xMovement)) return false;
+        int steps = Math.min(Math.abs(xMovement), Math.abs(yMovement));
+        int[] ray = geometry.knightRay(from, BoardGeometry.knightDirection(xMovement / steps, yMovement / steps));
+        for (int n = 0; n < steps - 1; n++) {
+            if (board[ray[n]] != 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether a piece on a square would be captured by any piece of
+     * the attacker color, ignoring checks, the same way
+     * {@link Chess#isPlayerInCheck(ChessColor)} finds checks.
+     */
+    private boolean isAttacked(int square, int attacker) {
+        for (MovementPattern lines : ATTACK_LINES) {
+            for (int i = 0; i < lines.size(); i++) {
+                int[] ray = geometry.ray(lines, square, i);
+                for (int n = 0; n < ray.length; n++) {
+                    byte code = board[ray[n]];
+                    if (code == 0) continue;
+                    if (colorOf(code) == attacker && attacks(TYPES[typeOf(code)], lines.xStep(i), lines.yStep(i), n == 0, attacker)) return true;
+                    break;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether a piece of the given type found along a line going out
+     * of the attacked square captures on it.
+     * @param adjacent True if it's the first square of the line, which
+     * leapers and pawns reach.
+     */
+    private static boolean attacks(PieceType type, int xStep, int yStep, boolean adjacent, int attacker) {
+        boolean knightLine = Chess.isKnightLikePath(xStep, yStep);
+        return switch (type) {
+            case ROOK -> Chess.isRookLikePath(xStep, yStep);
+            case BISHOP -> !knightLine && Chess.isBishopLikePath(xStep, yStep);
+            case QUEEN -> !knightLine;
+            case AMAZON -> !knightLine || adjacent;
+            case ARCHBISHOP -> knightLine ? adjacent : Chess.isBishopLikePath(xStep, yStep);
+            case CHANCELLOR -> knightLine ? adjacent : Chess.isRookLikePath(xStep, yStep);
+            case NIGHTRIDER -> knightLine;
+            case KNIGHT -> knightLine && adjacent;
+            case KING -> !knightLine && adjacent;
+            // The pawn is one row behind the attacked square, from its point of view.
+            case PAWN -> adjacent && xStep != 0 && yStep == -COLORS[attacker].yDirection() && !knightLine;
+        };
+    }
+
+    /**
+     * Evaluates the exchange of pieces a movement starts on its final square,
+     * assuming both players keep capturing on it with their least valuable
+     * piece while it pays off for them.
+     * <br><br>
+     * Attackers are found along the same lines as in
+     * {@link SearchBoard#isInCheck(ChessColor)}, so compound pieces attack
+     * with every movement they combine, and riders, Nightriders included,
+     * attack from afar. The pieces that already captured are taken off the
+     * lines, so the riders behind them join the exchange. An en passant
+     * capture takes the pawn off its own square, and a royal piece only
+     * captures if the square isn't attacked anymore. Pins are ignored, and
+     * so are crownings after the first movement.
+     * @param move Encoded movement, legal in the current position. It
+     * doesn't need to be a capture: a quiet movement evaluates the exchange
+     * started by the opponent capturing the moved piece.
+     * @param value Value of each {@link PieceType}.
+     * @return The material the player to move wins with the exchange, which
+     * is negative if it loses material.
+     */
+    public int staticExchange(int move, ToIntFunction<PieceType> value) {
+        int from = moveFrom(move);
+        int to = moveTo(move);
+        if (moveCastling(move) != null) return 0;
+        PieceType crowning = moveCrowning(move);
+        PieceType mover = TYPES[typeOf(board[from])];
+        int capturedSquare = isEnPassant(move) ? enPassantSquare : to;
+        int gain = board[capturedSquare] == 0 ? 0 : value.applyAsInt(TYPES[typeOf(board[capturedSquare])]);
+        if (crowning != null) gain += value.applyAsInt(crowning) - value.applyAsInt(mover);
+        exchangeGains[0] = gain;
+        exchanged[from] = true;
+        exchanged[capturedSquare] = true;
+        int onSquare = value.applyAsInt(crowning != null ? crowning : mover);
+        int side = 1 - colorOf(board[from]);
+        int depth = 0;
+        while (true) {
+            int attackerSquare = leastValuableAttacker(to, side, value);
+            if (attackerSquare < 0) break;
+            if (attackerSquare == royalSquares[side]) {
+                exchanged[attackerSquare] = true;
+                boolean defended = leastValuableAttacker(to, 1 - side, value) >= 0;
+                exchanged[attackerSquare] = false;
+                if (defended) break;
+            }
+            depth++;
+            exchangeGains[depth] = onSquare - exchangeGains[depth - 1];
+            onSquare = value.applyAsInt(TYPES[typeOf(board[attackerSquare])]);
+            exchanged[attackerSquare] = true;
+            side = 1 - side;
+        }
+        while (depth > 0) {
+            exchangeGains[depth - 1] = -Math.max(-exchangeGains[depth - 1], exchangeGains[depth]);
+            depth--;
+        }
+        Arrays.fill(exchanged, false);
+        return exchangeGains[0];
+    }
+
+    /**
+     * Finds the least valuable piece of the given color attacking a square,
+     * skipping the pieces already exchanged.
+     * @return The square of the piece, or -1 if there's none.
+     */
+    private int leastValuableAttacker(int square, int attacker, ToIntFunction<PieceType> value) {
+        int best = -1;
+        int bestValue = Integer.MAX_VALUE;
+        for (MovementPattern lines : ATTACK_LINES) {
+            for (int i = 0; i < lines.size(); i++) {
+                int[] ray = geometry.ray(lines, square, i);
+                for (int n = 0; n < ray.length; n++) {
+                    byte code = board[ray[n]];
+                    if (code == 0 || exchanged[ray[n]]) continue;
+                    PieceType type = TYPES[typeOf(code)];
+                    if (colorOf(code) == attacker && attacks(type, lines.xStep(i), lines.yStep(i), n == 0, attacker)) {
+                        // The royal piece captures last, whatever its value.
+                        int attackerValue = ray[n] == royalSquares[attacker] ? Integer.MAX_VALUE - 1 : value.applyAsInt(type);
+                        if (attackerValue < bestValue) {
+                            best = ray[n];
+                            bestValue = attackerValue;
+                        }
+                    }
+                    break;
+                }
+            }
+        }
+        return best;
+    }
+
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Conversion to and from Chess">
+
+    /**
+     * Converts an encoded movement into the {@link Play} that performing it
+     * on the current position would store in the play history.
+     * @param move Encoded movement, legal in the current position.
+     * @return A {@link Play} that {@link Chess#tryToPlay(Play)} accepts on the
+     * game this position corresponds to.
+     */
+    public Play toPlay(int move) {
+        int from = moveFrom(move);
+        int to = moveTo(move);
+        ChessColor color = COLORS[colorOf(board[from])];
+        PieceType type = TYPES[typeOf(board[from])];
+        Position initPos = position(from);
+        Position finPos = position(to);
+        CastlingType castlingType = moveCastling(move);
+        if (castlingType != null) return new Play(type.constructor(initPos, color), initPos, finPos, castlingType);
+
+        int capturedSquare = isEnPassant(move) ? enPassantSquare : to;
+        Piece captured = board[capturedSquare] == 0 ? null : TYPES[typeOf(board[capturedSquare])].constructor(position(capturedSquare), COLORS[colorOf(board[capturedSquare])]);
+        Piece pieceAfterMoving = type.constructor(finPos, color);
+        PieceType crowning = moveCrowning(move);
+        if (crowning == null) return new Play(pieceAfterMoving, initPos, finPos, captured);
+        return new Play(pieceAfterMoving, initPos, finPos, captured, crowning.constructor(finPos, color));
+    }
+
+    /**
+     * Encodes a {@link Play} of the current position.
+     * @param play {@link Play} to encode, such as the ones returned by
+     * {@link Chess#legalMoves()} for the game this position corresponds to.
+     * @return The encoded movement, which isn't checked to be legal.
+     */
+    public int toMove(Play play) {
+        int from = geometry.index(play.initPos());
+        int to = geometry.index(play.finPos());
+        int move = encode(from, to);
+        if (play.castlingInfo() != null) return move | (play.castlingInfo().ordinal() + 1) << CASTLING_SHIFT;
+        if (play.pieceCrowned() != null) move |= (PieceType.of(play.pieceCrowned()).ordinal() + 1) << CROWN_SHIFT;
+        if (typeAt(from) == PieceType.PAWN && geometry.x(from) != geometry.x(to) && board[to] == 0) move |= EN_PASSANT_FLAG;
+        return move;
+    }
+
+    /**
+     * Exports the current position as a {@link Chess} game.
+     * @return The game this board was built from after performing, with
+     * {@link Chess#tryToPlay(Play)}, every movement still on the undo stack,
+     * so its play history, castling availability and state are the ones
+     * {@link Chess} would have after playing them.
+     * @throws IllegalStateException If any of those movements wasn't legal.
+     */
+    public Chess toChess() {
+        int[] moves = Arrays.copyOf(moveStack, ply);
+        while (ply > 0) unmakeMove();
+        Chess game = origin;
+        for (int move : moves) {
+            Play play = toPlay(move);
+            game = game.tryToPlay(play).orElseThrow(() -> new IllegalStateException(play + " can't be performed on the exported game"));
+            makeMove(move);
+        }
+        return game;
+    }
+
+    //</editor-fold>
+
+    //<editor-fold defaultstate="collapsed" desc="Encoding auxiliary methods">
+
+    private static byte code(int color, int type) {
+        return (byte) (1 + color * TYPES.length + type);
+    }
+
+    private static int colorOf(byte code) {
+        return (code - 1) / TYPES.length;
+    }
+
+    private static int typeOf(byte code) {
+        return (code - 1) % TYPES.length;
+    }
+
+    private long pieceKey(byte code, int square) {
+        return zobristKeys.piece(colorOf(code), typeOf(code), square);
+    }
+
+    private static int castlingBit(int color, CastlingType type) {
+        return CastlingRights.bit(COLORS[color], type);
+    }
+
+    private void added(byte code, int square) {
+        listener.pieceAdded(COLORS[colorOf(code)], TYPES[typeOf(code)], square);
+    }
+
+    private void removed(byte code, int square) {
+        listener.pieceRemoved(COLORS[colorOf(code)], TYPES[typeOf(code)], square);
+    }
+
+    private Position position(int square) {
+        return Position.of(geometry.x(square), geometry.y(square));
+    }
+
+    //</editor-fold>
+
+}
@@ -0,0 +1,115 @@
+package functional_chess_model;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Random 64-bit keys used to hash positions of a {@link GameVariant} with
+ * Zobrist hashing: the key of a position is the XOR of the keys of each
+ * piece on its square, plus those of the side to move, the castling
+ * availabilities and the column of a pawn that can be captured en passant.
+ * <br><br>
+ * Since XOR is its own inverse, the key is updated after a movement by
+ * XOR-ing out the keys that no longer apply and XOR-ing in the new ones,
+ * without hashing the whole position again. The keys are generated from a
+ * fixed seed for each variant, so they're the same on every run.
+ * @author Alfonso Gallego
+ */
+final class ZobristKeys {
+
+    private static final int TYPES = PieceType.values().length;
+    private static final int CASTLING_TYPES = CastlingType.values().length;
+    private static final Map<GameVariant, ZobristKeys> KEYS = new EnumMap<>(GameVariant.class);
+
+    static {
+        for (GameVariant variant : GameVariant.values()) KEYS.put(variant, new ZobristKeys(variant));
+    }
+
+    private final int squares;
+    /**
+     * Keys of each piece code and square, indexed by
+     * {@code ((color * types) + type) * squares + square}.
+     */
+    private final long[] pieceKeys;
+    private final long blackToMove;
+    /**
+     * Keys of each castling availability, indexed by
+     * {@code color * 2 + castlingType}.
+     */
+    private final long[] castlingKeys;
+    /**
+     * Keys of the column of a pawn that can be captured en passant, indexed
+     * by {@code x - 1}.
+     */
+    private final long[] enPassantKeys;
+
+    private ZobristKeys(GameVariant variant) {
+        SplittableRandom random = new SplittableRandom(0x9E3779B97F4A7C15L * (variant.ordinal() + 1));
+        this.squares = variant.rows() * variant.cols();
+        this.pieceKeys = random.longs((long) ChessColor.values().length * TYPES * squares).toArray();
+        this.blackToMove = random.nextLong();
+        this.castlingKeys = random.longs((long) ChessColor.values().length * CASTLING_TYPES).toArray();
+        this.enPassantKeys = random.longs(variant.cols()).toArray();
+    }
+
+    /**
+     * Gets the keys of a variant.
+     * @param variant {@link GameVariant} to get the keys of.
+     * @return The keys shared by every game of that variant.
+     */
+    static ZobristKeys of(GameVariant variant) {
+        return KEYS.get(variant);
+    }
+
+    /**
+     * Gets the key of a piece on a square.
+     * @param color Ordinal of the {@link ChessColor} of the piece.
+     * @param type Ordinal of the {@link PieceType} of the piece.
+     * @param square Index of the square, as in {@link BoardGeometry}.
+     * @return The key of that piece on that square.
+     */
+    long piece(int color, int type, int square) {
+        return pieceKeys[(color * TYPES + type) * squares + square];
+    }
+
+    /**
+     * Gets the key of a {@link Piece} on its position.
+     * @param piece {@link Piece} to get the key of.
+     * @param cols Number of columns of the board.
+     * @return The key of that piece on its square.
+     */
+    long piece(Piece piece, int cols) {
+        Position pos = piece.getPosition();
+        return piece(piece.getColor().ordinal(), PieceType.of(piece).ordinal(), (pos.y() - 1) * cols + (pos.x() - 1));
+    }
+
+    /**
+     * Gets the key of the side to move.
+     * @param activePlayer {@link ChessColor} of the player to move.
+     * @return A key for black, and 0 for white.
+     */
+    long side(ChessColor activePlayer) {
+        return activePlayer == ChessColor.BLACK ? blackToMove : 0;
+    }
+
+    /**
+     * Gets the key of a castling availability.
+     * @param color {@link ChessColor} of the player.
+     * @param type {@link CastlingType} available to it.
+     * @return The key of that availability.
+     */
+    long castling(ChessColor color, CastlingType type) {
+        return castlingKeys[color.ordinal() * CASTLING_TYPES + type.ordinal()];
+    }
+
+    /**
+     * Gets the key of a pawn that can be captured en passant.
+     * @param x Column of the pawn.
+     * @return The key of that column.
+     */
+    long enPassant(int x) {
+        return enPassantKeys[x - 1];
+    }
+
+}
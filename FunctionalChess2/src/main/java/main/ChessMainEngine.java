@@ -0,0 +1,127 @@
+package main;
+
+import chess_engine.Engine;
+import chess_engine.ParallelSearch;
+import chess_engine.Perft;
+import chess_engine.SearchLimits;
+import chess_engine.SearchResult;
+import chess_engine.TranspositionTable;
+import functional_chess_model.Chess;
+import functional_chess_model.GameVariant;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * Main class to analyze a game with the {@link Engine} from the command line.
+ * <br><br>
+ * Usage: {@code ChessMainEngine <variant|saved game file> [--depth=N] [--nodes=N] [--millis=N] [--hash=MB] [--threads=N] [--scaling]}
+ * <ul>
+ *     <li>The game is the initial position of a {@link GameVariant} or a game
+ *     saved from the GUI.</li>
+ *     <li>{@code --depth}, {@code --nodes} and {@code --millis} limit the
+ *     search. Without any of them, it's limited to
+ *     {@value #DEFAULT_MILLIS} milliseconds.</li>
+ *     <li>{@code --hash} sets the size of the {@link TranspositionTable}, in
+ *     megabytes, {@value Engine#DEFAULT_TABLE_MEGABYTES} by default.</li>
+ *     <li>{@code --threads=N} searches with N threads with a
+ *     {@link ParallelSearch}.</li>
+ *     <li>{@code --scaling} searches to the given depth, or
+ *     {@value #DEFAULT_SCALING_DEPTH}, with 1, 2, 4... threads up to the
+ *     number given with {@code --threads}, or the number of processors, and
+ *     prints the speedup of each number of threads.</li>
+ * </ul>
+ * Each completed iteration prints its depth, score, nodes, time, speed and
+ * principal variation, counting the nodes of all threads.
+ * @author Alfonso Gallego
+ */
+public class ChessMainEngine {
+
+    private static final long DEFAULT_MILLIS = 5000;
+    private static final int DEFAULT_SCALING_DEPTH = 6;
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("Usage: ChessMainEngine <variant|saved game file> [--depth=N] [--nodes=N] [--millis=N] [--hash=MB] [--threads=N] [--scaling]");
+            System.exit(2);
+        }
+        List<String> options = List.of(args).subList(1, args.length);
+        SearchLimits limits = SearchLimits.NONE;
+        int megabytes = Engine.DEFAULT_TABLE_MEGABYTES;
+        int threads = 0;
+        boolean scaling = options.contains("--scaling");
+        for (String option : options) {
+            String value = option.substring(option.indexOf('=') + 1);
+            if (option.startsWith("--depth=")) limits = limits.withDepth(Integer.parseInt(value));
+            else if (option.startsWith("--nodes=")) limits = limits.withNodes(Long.parseLong(value));
+            else if (option.startsWith("--millis=")) limits = limits.withMillis(Long.parseLong(value));
+            else if (option.startsWith("--hash=")) megabytes = Integer.parseInt(value);
+            else if (option.startsWith("--threads=")) threads = Integer.parseInt(value);
+        }
+
+        Chess game = isVariantName(args[0])
+            ? GameVariant.valueOf(args[0].toUpperCase(Locale.ROOT)).initGame(false)
+            : loadGame(args[0]);
+        if (scaling) {
+            int depth = limits.depth() < Engine.MAX_PLY ? limits.depth() : DEFAULT_SCALING_DEPTH;
+            printScaling(game, depth, threads > 0 ? threads : Runtime.getRuntime().availableProcessors(), megabytes);
+            return;
+        }
+        if (limits.equals(SearchLimits.NONE)) limits = limits.withMillis(DEFAULT_MILLIS);
+
+        System.out.println(game.variant() + ", " + game.activePlayer() + " to move, " + Math.max(threads, 1) + " threads");
+        try (ParallelSearch search = new ParallelSearch(Math.max(threads, 1), megabytes)) {
+            SearchResult result = search.search(game, limits, ChessMainEngine::report);
+            if (result.depth() == 0) System.out.println(result.score() < 0 ? "Checkmated" : "No legal plays");
+            else System.out.println("Best play: " + Perft.notation(result.bestPlay().get()) + ", table " + search.table().usagePermille() / 10.0 + "% full");
+        }
+    }
+
+    /**
+     * Searches a game with 1, 2, 4... threads up to the given number and
+     * prints how well each run scales.
+     */
+    private static void printScaling(Chess game, int depth, int maxThreads, int megabytes) {
+        List<Integer> threadCounts = new ArrayList<>();
+        for (int threads = 1; threads < maxThreads; threads *= 2) threadCounts.add(threads);
+        threadCounts.add(maxThreads);
+        System.out.println(game.variant() + ", depth " + depth + ", scaling up to " + maxThreads + " threads on " + Runtime.getRuntime().availableProcessors() + " processors");
+        for (ParallelSearch.Scaling run : ParallelSearch.scaling(game, depth, threadCounts.stream().mapToInt(Integer::intValue).toArray(), megabytes)) {
+            System.out.printf(Locale.ROOT, "%3d threads: %d nodes in %.3f s, %d nodes per second, speedup %.2f, efficiency %.0f%%%n",
+                run.threads(), run.nodes(), run.nanos() / 1e9, run.nodesPerSecond(), run.speedup(), run.efficiency() * 100);
+        }
+    }
+
+    private static void report(SearchResult result) {
+        String score = result.isMate() ? "mate " + result.mateIn() : String.format(Locale.ROOT, "%+.2f", result.score() / 100.0);
+        String pv = result.principalVariation().stream().map(Perft::notation).collect(Collectors.joining(" "));
+        System.out.printf(Locale.ROOT, "depth %2d  score %7s  nodes %10d  time %7.3f s  nps %8d  pv %s%n",
+            result.depth(), score, result.nodes(), result.nanos() / 1e9, result.nodesPerSecond(), pv);
+    }
+
+    private static boolean isVariantName(String arg) {
+        return Arrays.stream(GameVariant.values()).anyMatch(variant -> variant.name().equalsIgnoreCase(arg));
+    }
+
+    private static Chess loadGame(String path) {
+        try (
+            FileInputStream fis = new FileInputStream(path);
+            BufferedInputStream bufis = new BufferedInputStream(fis);
+            ObjectInputStream ois = new ObjectInputStream(bufis)
+        ) {
+            return (Chess) ois.readObject();
+        } catch (IOException | ClassNotFoundException ex) {
+            System.err.println("Couldn't read a variant or a saved game from " + path + ": " + ex.getMessage());
+            System.exit(2);
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,195 @@
+package main;
+
+import chess_engine.ParallelPerft;
+import chess_engine.Perft;
+import functional_chess_model.Chess;
+import functional_chess_model.GameVariant;
+import functional_chess_model.Play;
+import functional_chess_model.SearchBoard;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.OptionalLong;
+
+/**
+ * Main class to count the leaf nodes of the tree of legal movements of a game
+ * from the command line, checking them against the reference counts.
+ * <br><br>
+ * Usage: {@code ChessMainPerft <variant|all|saved game file> <depth> [--divide] [--searchboard] [--threads=N] [--scaling]}
+ * <ul>
+ *     <li>The game is the initial position of a {@link GameVariant}, of every
+ *     variant with {@code all}, or a game saved from the GUI.</li>
+ *     <li>{@code --divide} also prints the count under each legal movement.</li>
+ *     <li>{@code --searchboard} walks the tree on a {@link SearchBoard} instead
+ *     of the immutable {@link Chess} states.</li>
+ *     <li>{@code --threads=N} splits the tree among N threads with a
+ *     {@link ParallelPerft}, caching the counts of repeated positions.</li>
+ *     <li>{@code --scaling} counts the tree with 1, 2, 4... threads up to
+ *     the number given with {@code --threads}, or the number of processors,
+ *     and prints the speedup and efficiency of each run.</li>
+ * </ul>
+ * It exits with status 1 if any count differs from its reference.
+ * @author Alfonso Gallego
+ */
+public class ChessMainPerft {
+
+    /**
+     * Maximum number of subtree counts cached by the parallel runs.
+     */
+    private static final int CACHE_CAPACITY = 4_000_000;
+
+    public static void main(String[] args) {
+        if (args.length < 2 || parseDepth(args[1]) < 1) {
+            System.err.println("Usage: ChessMainPerft <variant|all|saved game file> <depth> [--divide] [--searchboard] [--threads=N] [--scaling]");
+            System.err.println("The depth must be a positive number.");
+            System.exit(2);
+        }
+        int depth = parseDepth(args[1]);
+        List<String> options = List.of(args).subList(2, args.length);
+        boolean divide = options.contains("--divide");
+        boolean searchBoard = options.contains("--searchboard");
+        boolean scaling = options.contains("--scaling");
+        int threads = options.stream()
+            .filter(option -> option.startsWith("--threads="))
+            .mapToInt(option -> Integer.parseInt(option.substring("--threads=".length())))
+            .findFirst()
+            .orElse(0);
+
+        List<Chess> games = new ArrayList<>();
+        boolean saved = false;
+        if (args[0].equalsIgnoreCase("all")) {
+            for (GameVariant variant : GameVariant.values()) games.add(variant.initGame(false));
+        } else if (isVariantName(args[0])) {
+            games.add(GameVariant.valueOf(args[0].toUpperCase(Locale.ROOT)).initGame(false));
+        } else {
+            games.add(loadGame(args[0]));
+            saved = true;
+        }
+
+        boolean allMatch = true;
+        for (Chess game : games) {
+            if (scaling) printScaling(game, depth, threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+            else if (threads > 0) allMatch &= runParallel(game, depth, divide, threads, saved);
+            else allMatch &= run(game, depth, divide, searchBoard, saved);
+        }
+        if (!allMatch) System.exit(1);
+    }
+
+    /**
+     * Counts and prints the leaf nodes of a game.
+     * @return False if the count differs from the reference count of its
+     * variant, true otherwise.
+     */
+    private static boolean run(Chess game, int depth, boolean divide, boolean searchBoard, boolean saved) {
+        System.out.println(game.variant() + (saved ? " (saved game)" : "") + ", depth " + depth + (searchBoard ? ", SearchBoard" : ", Chess"));
+        long start = System.nanoTime();
+        long nodes;
+        if (divide) {
+            Map<Play, Long> counts = searchBoard ? Perft.divide(SearchBoard.of(game), depth) : Perft.divide(game, depth);
+            counts.forEach((play, count) -> System.out.println(Perft.notation(play) + ": " + count));
+            System.out.println("Moves: " + counts.size());
+            nodes = counts.values().stream().mapToLong(Long::longValue).sum();
+        } else {
+            nodes = searchBoard ? Perft.perft(SearchBoard.of(game), depth) : Perft.perft(game, depth);
+        }
+        return report(game, depth, nodes, System.nanoTime() - start, saved);
+    }
+
+    /**
+     * Counts and prints the leaf nodes of a game splitting the tree among
+     * several threads.
+     * @return False if the count differs from the reference count of its
+     * variant, true otherwise.
+     */
+    private static boolean runParallel(Chess game, int depth, boolean divide, int threads, boolean saved) {
+        System.out.println(game.variant() + (saved ? " (saved game)" : "") + ", depth " + depth + ", " + threads + " threads");
+        try (ParallelPerft perft = new ParallelPerft(threads, CACHE_CAPACITY)) {
+            long start = System.nanoTime();
+            long nodes;
+            if (divide) {
+                Map<Play, Long> counts = perft.divide(game, depth);
+                counts.forEach((play, count) -> System.out.println(Perft.notation(play) + ": " + count));
+                System.out.println("Moves: " + counts.size());
+                nodes = counts.values().stream().mapToLong(Long::longValue).sum();
+            } else {
+                nodes = perft.perft(game, depth);
+            }
+            return report(game, depth, nodes, System.nanoTime() - start, saved);
+        }
+    }
+
+    /**
+     * Counts the leaf nodes of a game with 1, 2, 4... threads up to the
+     * given number and prints how well each run scales.
+     */
+    private static void printScaling(Chess game, int depth, int maxThreads) {
+        List<Integer> threadCounts = new ArrayList<>();
+        for (int threads = 1; threads < maxThreads; threads *= 2) threadCounts.add(threads);
+        threadCounts.add(maxThreads);
+        System.out.println(game.variant() + ", depth " + depth + ", scaling up to " + maxThreads + " threads on " + Runtime.getRuntime().availableProcessors() + " processors");
+        for (ParallelPerft.Scaling run : ParallelPerft.scaling(game, depth, threadCounts.stream().mapToInt(Integer::intValue).toArray(), CACHE_CAPACITY)) {
+            System.out.printf(Locale.ROOT, "%3d threads: %d nodes in %.3f s, %d nodes per second, speedup %.2f, efficiency %.0f%%%n",
+                run.threads(), run.nodes(), run.nanos() / 1e9, Math.round(run.nodes() * 1e9 / run.nanos()), run.speedup(), run.efficiency() * 100);
+        }
+        System.out.println();
+    }
+
+    /**
+     * Prints the count, time and speed of a run and checks the count against
+     * the reference count of the variant of the game.
+     * @return False if the count differs from the reference, true otherwise.
+     */
+    private static boolean report(Chess game, int depth, long nodes, long nanos, boolean saved) {
+        System.out.println("Nodes: " + nodes);
+        System.out.printf(Locale.ROOT, "Time: %.3f s%n", nanos / 1e9);
+        System.out.println("Nodes per second: " + (nanos == 0 ? 0 : Math.round(nodes * 1e9 / nanos)));
+
+        OptionalLong reference = saved ? OptionalLong.empty() : Perft.referenceCount(game.variant(), depth);
+        if (reference.isEmpty()) {
+            System.out.println();
+            return true;
+        }
+        boolean matches = reference.getAsLong() == nodes;
+        System.out.println("Reference: " + reference.getAsLong() + (matches ? " (OK)" : " (MISMATCH)"));
+        System.out.println();
+        return matches;
+    }
+
+    /**
+     * Parses the depth argument.
+     * @return The depth, or 0 if it isn't a number.
+     */
+    private static int parseDepth(String arg) {
+        try {
+            return Integer.parseInt(arg);
+        } catch (NumberFormatException ex) {
+            return 0;
+        }
+    }
+
+    private static boolean isVariantName(String arg) {
+        return Arrays.stream(GameVariant.values()).anyMatch(variant -> variant.name().equalsIgnoreCase(arg));
+    }
+
+    private static Chess loadGame(String path) {
+        try (
+            FileInputStream fis = new FileInputStream(path);
+            BufferedInputStream bufis = new BufferedInputStream(fis);
+            ObjectInputStream ois = new ObjectInputStream(bufis)
+        ) {
+            return (Chess) ois.readObject();
+        } catch (IOException | ClassNotFoundException ex) {
+            System.err.println("Couldn't read a variant or a saved game from " + path + ": " + ex.getMessage());
+            System.exit(2);
+            return null;
+        }
+    }
+
+}
@@ -34,6 +34,7 @@ public class Index extends JFrame {
     private final JRadioButton localRadio;
     private final JRadioButton hostRadio;
     private final JRadioButton clientJoinButton;
+    private final JRadioButton computerRadio;
     private final ButtonGroup networkToggleGroup;
     
     private IndexController controller;
@@ -74,6 +75,7 @@ public class Index extends JFrame {
         localRadio = new JRadioButton("Local");
         hostRadio = new JRadioButton("Host Game");
         clientJoinButton = new JRadioButton("Join Game");
+        computerRadio = new JRadioButton("Vs Computer");
 
         localRadio.setSelected(true);
 
@@ -81,6 +83,7 @@ public class Index extends JFrame {
         networkToggleGroup.add(localRadio);
         networkToggleGroup.add(hostRadio);
         networkToggleGroup.add(clientJoinButton);
+        networkToggleGroup.add(computerRadio);
 
         radioPanel = new JPanel();
         radioPanel.setOpaque(false);
@@ -88,6 +91,7 @@ public class Index extends JFrame {
         radioPanel.add(localRadio);
         radioPanel.add(hostRadio);
         radioPanel.add(clientJoinButton);
+        radioPanel.add(computerRadio);
 
         bottomTopPanel.add(radioPanel);
 
@@ -183,6 +187,7 @@ public class Index extends JFrame {
     public IndexController.GameType gameTypeSelected() {
         if (hostRadio.isSelected()) return IndexController.GameType.HOST;
         if (clientJoinButton.isSelected()) return IndexController.GameType.CLIENT;
+        if (computerRadio.isSelected()) return IndexController.GameType.COMPUTER;
         return IndexController.GameType.LOCAL;
     }
 
@@ -1,12 +1,36 @@
 
+import chess_engine.Engine;
+import chess_engine.Evaluation;
+import chess_engine.IncrementalEvaluation;
+import chess_engine.MoveOrdering;
+import chess_engine.ParallelPerft;
+import chess_engine.ParallelSearch;
+import chess_engine.Perft;
+import chess_engine.SearchLimits;
+import chess_engine.SearchResult;
+import chess_engine.TimeManager;
+import chess_engine.TranspositionTable;
 import controller.ChessController;
 import functional_chess_model.*;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
 import javax.swing.SwingUtilities;
 
 import functional_chess_model.Pieces.Bishop;
+import functional_chess_model.Pieces.King;
+import functional_chess_model.Pieces.Knight;
 import functional_chess_model.Pieces.Nightrider;
+import functional_chess_model.Pieces.Pawn;
+import functional_chess_model.Pieces.Queen;
 import functional_chess_model.Pieces.Rook;
 import org.junit.jupiter.api.Test;
 import view.ChessGUI;
@@ -32,6 +56,60 @@ public class testChess {
         assertNotEquals(Optional.of(new Bishop(Position.of(1, 1), ChessColor.WHITE)), STANDARDGAME.findPieceAt(Position.of(1, 1)));
     }
     
+    @Test
+    void testFindPieceAtAfterMovesOnWideBoard() {
+        Chess game = GameVariant.CAPABLANCA.initGame(false)
+            .tryToMoveChain(Position.of(6, 2), Position.of(6, 4))
+            .tryToMoveChain(Position.of(5, 7), Position.of(5, 5))
+            .tryToMoveChain(Position.of(6, 4), Position.of(5, 5))
+            .tryToMoveChain(Position.of(8, 8), Position.of(7, 6));
+        for (Piece piece : game.pieces()) {
+            assertEquals(Optional.of(piece), game.findPieceAt(piece.getPosition()));
+        }
+        assertEquals(39, game.pieces().size());
+        assertFalse(game.checkPieceAt(Position.of(6, 4)));
+        assertTrue(game.checkPieceDiffColorAs(Position.of(5, 5), ChessColor.BLACK));
+        assertEquals(Optional.empty(), game.findPieceAt(Position.of(11, 1)));
+    }
+
+    @Test
+    void testMovingPieceNotOnBoard() {
+        // There's no knight on e2, so the pawn stays there.
+        Chess game = STANDARDGAME.tryToMoveChain(new Knight(Position.of(5, 2), ChessColor.WHITE), Position.of(6, 4), false);
+        Piece pawn = game.pieces().stream().filter(piece -> piece.getPosition().equals(Position.of(5, 2))).findFirst().get();
+        assertEquals(Optional.of(pawn), game.findPieceAt(Position.of(5, 2)));
+        Chess rebuilt = new Chess(game.pieces(), game.castling(), game.playHistory(), game.activePlayer(), game.variant(),
+            game.state(), game.isTimed(), game.whiteSeconds(), game.blackSeconds());
+        assertEquals(rebuilt.toBitBoard(), game.toBitBoard());
+        assertEquals(rebuilt.zobristKey(), game.zobristKey());
+    }
+
+    @Test
+    void testBitBoardConversion() {
+        for (GameVariant variant : GameVariant.values()) {
+            Chess game = variant.initGame(false);
+            BitBoard bitBoard = game.toBitBoard();
+            assertEquals(variant.cols(), bitBoard.count(ChessColor.WHITE, PieceType.PAWN));
+            assertTrue(bitBoard.isOccupied(variant.initKingPos(ChessColor.BLACK), PieceType.KING));
+            Chess converted = game.withBitBoard(bitBoard);
+            assertEquals(Set.copyOf(game.pieces()), Set.copyOf(converted.pieces()));
+            assertEquals(bitBoard, converted.toBitBoard());
+        }
+    }
+
+    @Test
+    void testBitBoardPathsAndAttacks() {
+        Chess game = GameVariant.MODERN.initGame(false)
+            .tryToMoveChain(Position.of(5, 2), Position.of(5, 4))
+            .tryToMoveChain(Position.of(4, 8), Position.of(4, 6));
+        BitBoard bitBoard = game.toBitBoard();
+        assertTrue(bitBoard.isPathClear(Position.of(4, 1), Position.of(8, 5)));
+        assertFalse(bitBoard.isPathClear(Position.of(4, 1), Position.of(4, 4)));
+        assertTrue(bitBoard.isAttacked(Position.of(9, 6), ChessColor.WHITE));
+        assertFalse(bitBoard.isAttacked(Position.of(5, 5), ChessColor.WHITE));
+        assertTrue(bitBoard.isAttacked(Position.of(5, 5), ChessColor.BLACK));
+    }
+
     @Test
     void testCheckPieceSameOrDiffColorAs() {
         assertTrue(STANDARDGAME.checkPieceSameColorAs(Position.of(1, 1), ChessColor.WHITE));
@@ -97,6 +175,38 @@ public class testChess {
         assertTrue(game.isPlayerInCheck(ChessColor.WHITE));
     }
     
+    @Test
+    void testNightriderBlocked() {
+        Chess game = new Chess(
+            List.of(new Nightrider(Position.of(1, 1), ChessColor.WHITE), new Rook(Position.of(2, 3), ChessColor.BLACK)),
+            GameVariant.CAPABLANCA.initCastling(),
+            List.of(),
+            ChessColor.WHITE,
+            GameVariant.CAPABLANCA,
+            GameState.NOT_STARTED,
+            false,
+            -1,
+            -1
+        );
+        assertTrue(game.isValidMove(Position.of(1, 1), Position.of(2, 3)));
+        assertFalse(game.isValidMove(Position.of(1, 1), Position.of(3, 5)));
+        assertTrue(game.isValidMove(Position.of(1, 1), Position.of(9, 5)));
+        assertEquals(5, game.legalMoves().size());
+    }
+    
+    @Test
+    void testCheckingAndPinnedPieces() {
+        Chess game = STANDARDGAME
+            .tryToMoveChain(Position.of(5, 2), Position.of(5, 4))
+            .tryToMoveChain(Position.of(4, 7), Position.of(4, 6))
+            .tryToMoveChain(Position.of(6, 1), Position.of(2, 5));
+        assertEquals(List.of(Position.of(2, 5)), game.checkingPieces(ChessColor.BLACK).stream().map(Piece::getPosition).toList());
+        game = game.tryToMoveChain(Position.of(3, 7), Position.of(3, 6));
+        assertTrue(game.checkingPieces(ChessColor.BLACK).isEmpty());
+        assertEquals(List.of(Position.of(3, 6)), game.pinnedPieces(ChessColor.BLACK).stream().map(Piece::getPosition).toList());
+        assertFalse(game.isValidMove(Position.of(3, 6), Position.of(3, 5)));
+    }
+    
     @Test
     void testCheckMate() {
         Chess game = STANDARDGAME
@@ -107,6 +217,498 @@ public class testChess {
         assertEquals(GameState.BLACK_WINS, game.checkMateChain(ChessColor.WHITE).state());
     }
     
+    @Test
+    void testLegalMoves() {
+        List<Play> plays = STANDARDGAME.legalMoves();
+        assertEquals(20, plays.size());
+        assertTrue(plays.stream().allMatch(play -> STANDARDGAME.tryToPlay(play).isPresent()));
+        assertEquals(
+            Set.copyOf(ChessController.validMovesOf(STANDARDGAME, STANDARDGAME.findPieceAt(Position.of(2, 1)).get())),
+            Set.of(Position.of(1, 3), Position.of(3, 3))
+        );
+    }
+    
+    @Test
+    void testRiderMovesStopAtPieces() {
+        Chess game = createTestGameWithPiece(new Queen(Position.of(4, 4), ChessColor.WHITE));
+        assertEquals(27, game.legalMoves().size());
+        Chess blocked = STANDARDGAME
+            .tryToMoveChain(Position.of(5, 2), Position.of(5, 4))
+            .tryToMoveChain(Position.of(5, 7), Position.of(5, 5));
+        Piece queen = blocked.findPieceAt(Position.of(4, 1)).get();
+        assertEquals(Set.of(Position.of(5, 2), Position.of(6, 3), Position.of(7, 4), Position.of(8, 5)), Set.copyOf(ChessController.validMovesOf(blocked, queen)));
+    }
+    
+    @Test
+    void testNightriderMoves() {
+        Chess game = createTestGameWithPiece(new Nightrider(Position.of(4, 4), ChessColor.WHITE));
+        assertEquals(12, game.legalMoves().size());
+        assertTrue(game.isValidMove(Position.of(4, 4), Position.of(2, 8)));
+        assertTrue(game.isValidMove(Position.of(4, 4), Position.of(8, 2)));
+        assertFalse(game.isValidMove(Position.of(4, 4), Position.of(8, 8)));
+    }
+    
+    @Test
+    void testStalemate() {
+        Chess game = new Chess(
+            List.of(
+                new King(Position.of(8, 8), ChessColor.BLACK),
+                new King(Position.of(6, 6), ChessColor.WHITE),
+                new Queen(Position.of(7, 6), ChessColor.WHITE)
+            ),
+            GameVariant.STANDARD.initCastling(),
+            List.of(),
+            ChessColor.BLACK,
+            GameVariant.STANDARD,
+            GameState.IN_PROGRESS,
+            false,
+            -1,
+            -1
+        );
+        assertTrue(game.legalMoves().isEmpty());
+        assertEquals(GameState.DRAW, game.checkMateChain(ChessColor.BLACK).state());
+    }
+    
+    @Test
+    void testHasAnyLegalMove() {
+        Chess game = new Chess(
+            List.of(
+                new King(Position.of(5, 4), ChessColor.WHITE),
+                new Pawn(Position.of(5, 5), ChessColor.WHITE),
+                new King(Position.of(8, 8), ChessColor.BLACK),
+                new Pawn(Position.of(4, 7), ChessColor.BLACK),
+                new Rook(Position.of(4, 1), ChessColor.BLACK),
+                new Rook(Position.of(6, 1), ChessColor.BLACK),
+                new Rook(Position.of(1, 3), ChessColor.BLACK)
+            ),
+            GameVariant.STANDARD.initCastling(),
+            List.of(),
+            ChessColor.BLACK,
+            GameVariant.STANDARD,
+            GameState.IN_PROGRESS,
+            false,
+            -1,
+            -1
+        ).tryToMoveChain(Position.of(4, 7), Position.of(4, 5));
+        // The only way out of the check of the pawn is capturing it en passant.
+        assertTrue(game.isPlayerInCheck(ChessColor.WHITE));
+        assertTrue(game.hasAnyLegalMove(ChessColor.WHITE));
+        assertEquals(1, game.legalMoves().size());
+        assertTrue(game.checkMate(ChessColor.WHITE).isEmpty());
+        assertTrue(STANDARDGAME.hasAnyLegalMove(ChessColor.WHITE));
+        assertTrue(STANDARDGAME.hasAnyLegalMove(ChessColor.BLACK));
+    }
+
+    @Test
+    void testDerivedDataIsReused() throws Exception {
+        Chess game = STANDARDGAME
+            .tryToMoveChain(Position.of(5, 2), Position.of(5, 4))
+            .tryToMoveChain(Position.of(4, 7), Position.of(4, 5));
+        Piece pawn = game.findPieceAt(Position.of(5, 4)).get();
+        assertSame(game.legalMoves(), game.legalMoves());
+        assertSame(game.legalMovesOf(pawn), game.legalMovesOf(pawn));
+        assertSame(game.legalMoves(), game.withSeconds(10, 10).legalMoves());
+        assertEquals(Set.of(Position.of(5, 5), Position.of(4, 5)), Set.copyOf(ChessController.validMovesOf(game, pawn)));
+        assertEquals(game.findPieceAt(Position.of(5, 1)), game.findRoyalPiece(ChessColor.WHITE));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(game);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            Chess read = (Chess) in.readObject();
+            assertEquals(game, read);
+            assertEquals(game.legalMoves(), read.legalMoves());
+        }
+    }
+
+    @Test
+    void testParallelMovesMatchSequential() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (GameVariant variant : List.of(GameVariant.CAPABLANCA, GameVariant.GOTHIC, GameVariant.JANUS)) {
+                Chess game = variant.initGame(false);
+                Chess copy = new Chess(List.copyOf(game.pieces()), game.castling(), game.playHistory(), game.activePlayer(), variant, game.state(), false, -1, -1);
+                assertEquals(game.legalMoves(ChessColor.WHITE, null), copy.legalMoves(ChessColor.WHITE, pool));
+                assertTrue(game.hasAnyLegalMove(ChessColor.BLACK, pool));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testSearchBoardMakeAndUnmake() {
+        SearchBoard board = SearchBoard.of(STANDARDGAME);
+        int[] moves = new int[SearchBoard.MAX_MOVES];
+        assertEquals(20, board.legalMoves(moves));
+        Chess game = STANDARDGAME;
+        for (int ply = 0; ply < 6; ply++) {
+            board.legalMoves(moves);
+            game = game.tryToPlay(board.toPlay(moves[0])).get();
+            board.makeMove(moves[0]);
+        }
+        assertEquals(game, board.toChess());
+        while (board.ply() > 0) board.unmakeMove();
+        assertEquals(STANDARDGAME, board.toChess());
+    }
+    
+    @Test
+    void testZobristKeyTranspositions() {
+        Chess knightsBack = STANDARDGAME
+            .tryToMoveChain(Position.of(7, 1), Position.of(6, 3))
+            .tryToMoveChain(Position.of(7, 8), Position.of(6, 6))
+            .tryToMoveChain(Position.of(6, 3), Position.of(7, 1))
+            .tryToMoveChain(Position.of(6, 6), Position.of(7, 8));
+        assertEquals(STANDARDGAME.zobristKey(), knightsBack.zobristKey());
+        Chess doubleSteps = STANDARDGAME
+            .tryToMoveChain(Position.of(5, 2), Position.of(5, 4))
+            .tryToMoveChain(Position.of(4, 7), Position.of(4, 5));
+        Chess singleSteps = STANDARDGAME
+            .tryToMoveChain(Position.of(5, 2), Position.of(5, 3))
+            .tryToMoveChain(Position.of(4, 7), Position.of(4, 6))
+            .tryToMoveChain(Position.of(5, 3), Position.of(5, 4))
+            .tryToMoveChain(Position.of(4, 6), Position.of(4, 5));
+        assertEquals(doubleSteps.zobristKey(), singleSteps.zobristKey());
+        assertNotEquals(doubleSteps.zobristKey(), doubleSteps.tryToMoveChain(Position.of(7, 1), Position.of(6, 3)).zobristKey());
+        assertEquals(doubleSteps.zobristKey(), SearchBoard.of(doubleSteps).zobristKey());
+    }
+    
+    @Test
+    void testPlayHistorySharedAndSerialized() throws Exception {
+        Chess game = STANDARDGAME;
+        for (int i = 0; i < 50; i++) {
+            game = game
+                .tryToMoveChain(Position.of(7, 1), Position.of(6, 3))
+                .tryToMoveChain(Position.of(7, 8), Position.of(6, 6))
+                .tryToMoveChain(Position.of(6, 3), Position.of(7, 1))
+                .tryToMoveChain(Position.of(6, 6), Position.of(7, 8));
+        }
+        assertEquals(200, game.playHistory().size());
+        assertEquals(Position.of(7, 8), game.getLastPlay().get().finPos());
+        assertEquals(Position.of(6, 3), game.playHistory().get(0).finPos());
+        assertEquals(List.copyOf(game.playHistory()), game.playHistory());
+        
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(game);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            Chess readGame = (Chess) in.readObject();
+            assertEquals(game, readGame);
+            assertEquals(game.zobristKey(), readGame.zobristKey());
+        }
+    }
+    
+    @Test
+    void testCastlingRights() {
+        assertEquals(GameVariant.STANDARD.initCastling(), STANDARDGAME.castling());
+        Chess pawnMoved = STANDARDGAME.tryToMoveChain(Position.of(5, 2), Position.of(5, 4));
+        assertSame(STANDARDGAME.castling(), pawnMoved.castling());
+        Chess rookMoved = STANDARDGAME
+            .tryToMoveChain(Position.of(8, 2), Position.of(8, 4))
+            .tryToMoveChain(Position.of(1, 7), Position.of(1, 5))
+            .tryToMoveChain(Position.of(8, 1), Position.of(8, 3));
+        assertFalse(rookMoved.isCastlingAvailable(ChessColor.WHITE, CastlingType.RIGHT));
+        assertTrue(rookMoved.isCastlingAvailable(ChessColor.WHITE, CastlingType.LEFT));
+        assertEquals(Map.of(CastlingType.LEFT, true, CastlingType.RIGHT, false), rookMoved.castling().get(ChessColor.WHITE));
+        assertEquals(Map.of(CastlingType.LEFT, true, CastlingType.RIGHT, true), rookMoved.castling().get(ChessColor.BLACK));
+    }
+    
+    @Test
+    void testPositionsAreShared() throws Exception {
+        assertSame(Position.of(3, 5), Position.of(3, 5));
+        assertSame(Position.of(26, 26), Position.of(26, 26));
+        assertEquals(Position.of(27, 1), Position.of(27, 1));
+        assertEquals(new Position(3, 5), Position.of(3, 5));
+        
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(Position.of(3, 5));
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertSame(Position.of(3, 5), in.readObject());
+        }
+    }
+    
+    @Test
+    void testPerftMatchesReferenceCounts() {
+        for (GameVariant variant : GameVariant.values()) {
+            Chess game = variant.initGame(false);
+            assertEquals(Perft.referenceCount(variant, 3).getAsLong(), Perft.perft(game, 3));
+            assertEquals(Perft.referenceCount(variant, 3).getAsLong(), Perft.perft(SearchBoard.of(game), 3));
+        }
+        Map<Play, Long> divide = Perft.divide(STANDARDGAME, 2);
+        assertEquals(20, divide.size());
+        assertTrue(divide.values().stream().allMatch(count -> count == 20));
+        assertThrows(IllegalArgumentException.class, () -> Perft.divide(STANDARDGAME, 0));
+        assertThrows(IllegalArgumentException.class, () -> Perft.divide(SearchBoard.of(STANDARDGAME), -1));
+        assertThrows(IllegalArgumentException.class, () -> Perft.perft(SearchBoard.of(STANDARDGAME), -1));
+    }
+    
+    @Test
+    void testParallelPerftMatchesPerft() {
+        Chess game = GameVariant.CAPABLANCA.initGame(false);
+        try (ParallelPerft perft = new ParallelPerft(4, 100_000)) {
+            assertEquals(Perft.referenceCount(GameVariant.CAPABLANCA, 4).getAsLong(), perft.perft(game, 4));
+            assertEquals(Perft.divide(game, 3), perft.divide(game, 3));
+        }
+        try (ParallelPerft perft = new ParallelPerft(2, 0)) {
+            assertEquals(Perft.referenceCount(GameVariant.STANDARD, 3).getAsLong(), perft.perft(STANDARDGAME, 3));
+        }
+    }
+    
+    @Test
+    void testEngineFindsMate() {
+        Chess game = new Chess(
+            List.of(
+                new King(Position.of(7, 1), ChessColor.WHITE),
+                new Rook(Position.of(1, 1), ChessColor.WHITE),
+                new King(Position.of(8, 8), ChessColor.BLACK),
+                new Pawn(Position.of(7, 7), ChessColor.BLACK),
+                new Pawn(Position.of(8, 7), ChessColor.BLACK)
+            ),
+            GameVariant.STANDARD.initCastling(),
+            List.of(),
+            ChessColor.WHITE,
+            GameVariant.STANDARD,
+            GameState.IN_PROGRESS,
+            false,
+            -1,
+            -1
+        );
+        SearchResult result = new Engine().search(game, SearchLimits.ofDepth(4));
+        assertTrue(result.isMate());
+        assertEquals(1, result.mateIn());
+        Chess mated = game.tryToPlay(result.bestPlay().get()).get();
+        assertEquals(GameState.WHITE_WINS, mated.checkMate(ChessColor.BLACK).get().state());
+        
+        SearchResult none = new Engine().search(mated, SearchLimits.ofDepth(4));
+        assertEquals(0, none.depth());
+        assertTrue(none.bestPlay().isEmpty());
+        assertEquals(-Engine.MATE_SCORE, none.score());
+        
+        for (GameVariant variant : GameVariant.values()) {
+            Chess initGame = variant.initGame(false);
+            SearchResult first = new Engine().search(initGame, SearchLimits.ofDepth(3));
+            assertEquals(3, first.depth());
+            assertTrue(initGame.tryToPlay(first.bestPlay().get()).isPresent());
+        }
+    }
+    
+    @Test
+    void testTranspositionTable() {
+        TranspositionTable table = new TranspositionTable(1);
+        assertEquals(1 << 16, table.capacity());
+        assertNull(table.probe(42));
+        table.store(42, 1234, -Engine.MATE_SCORE + 3, 7, TranspositionTable.Bound.UPPER);
+        assertEquals(new TranspositionTable.Entry(1234, -Engine.MATE_SCORE + 3, 7, TranspositionTable.Bound.UPPER), table.probe(42));
+        table.store(42, 0, 15, 8, TranspositionTable.Bound.EXACT);
+        assertEquals(new TranspositionTable.Entry(1234, 15, 8, TranspositionTable.Bound.EXACT), table.probe(42));
+        assertNull(table.probe(42 + (1L << 40)));
+        table.clear();
+        assertNull(table.probe(42));
+        assertThrows(IllegalArgumentException.class, () -> new TranspositionTable(0));
+        
+        Chess game = GameVariant.CAPABLANCA.initGame(false);
+        SearchResult first = new Engine(table).search(game, SearchLimits.ofDepth(4));
+        SearchResult second = new Engine(table).search(game, SearchLimits.ofDepth(4));
+        assertEquals(first.score(), second.score());
+        assertTrue(second.nodes() < first.nodes());
+    }
+    
+    @Test
+    void testParallelSearch() {
+        Chess game = GameVariant.CAPABLANCA.initGame(false);
+        try (ParallelSearch search = new ParallelSearch(4, 4)) {
+            assertEquals(4, search.threads());
+            List<SearchResult> iterations = new ArrayList<>();
+            SearchResult result = search.search(game, SearchLimits.ofDepth(4), iterations::add);
+            assertEquals(4, result.depth());
+            assertEquals(4, iterations.size());
+            assertTrue(result.nodes() >= iterations.getLast().nodes());
+            Chess afterPv = game;
+            for (Play play : result.principalVariation()) afterPv = afterPv.tryToPlay(play).orElseThrow();
+        }
+        try (ParallelSearch search = new ParallelSearch(1, 1)) {
+            SearchResult alone = new Engine().search(game, SearchLimits.ofDepth(3));
+            SearchResult single = search.search(game, SearchLimits.ofDepth(3));
+            assertEquals(alone.score(), single.score());
+            assertEquals(alone.nodes(), single.nodes());
+            assertEquals(alone.principalVariation(), single.principalVariation());
+        }
+        assertThrows(IllegalArgumentException.class, () -> new ParallelSearch(0, 1));
+        List<ParallelSearch.Scaling> scaling = ParallelSearch.scaling(game, 3, new int[] {1, 2}, 1);
+        assertEquals(2, scaling.size());
+        assertEquals(2, scaling.getLast().threads());
+    }
+    
+    @Test
+    void testMoveOrdering() {
+        Chess game = STANDARDGAME
+            .tryToMoveChain(Position.of(5, 2), Position.of(5, 4))
+            .tryToMoveChain(Position.of(4, 7), Position.of(4, 5));
+        Play capture = game.tryToMoveChain(Position.of(5, 4), Position.of(4, 5)).getLastPlay().get();
+        Play knightMove = game.tryToMoveChain(Position.of(7, 1), Position.of(6, 3)).getLastPlay().get();
+        assertEquals(MoveOrdering.mvvLva(PieceType.PAWN, PieceType.PAWN), MoveOrdering.captureScore(capture));
+        assertEquals(0, MoveOrdering.captureScore(knightMove));
+        assertTrue(MoveOrdering.mvvLva(PieceType.CHANCELLOR, PieceType.QUEEN) > MoveOrdering.mvvLva(PieceType.ROOK, PieceType.PAWN));
+        assertTrue(MoveOrdering.mvvLva(PieceType.NIGHTRIDER, PieceType.PAWN) > MoveOrdering.mvvLva(PieceType.NIGHTRIDER, PieceType.AMAZON));
+        
+        SearchBoard board = SearchBoard.of(game);
+        int[] moves = new int[SearchBoard.MAX_MOVES];
+        int count = board.legalMoves(moves);
+        MoveOrdering ordering = new MoveOrdering();
+        ordering.score(board, moves, count, 0, 0);
+        assertEquals(board.toMove(capture), ordering.next(moves, 0, count, 0));
+        assertTrue(MoveOrdering.isQuiet(board, board.toMove(knightMove)));
+        
+        ordering.cutoff(board, board.toMove(knightMove), 0, 3);
+        ordering.score(board, moves, count, 0, 0);
+        assertEquals(board.toMove(capture), ordering.next(moves, 0, count, 0));
+        assertEquals(board.toMove(knightMove), ordering.next(moves, 1, count, 0));
+        ordering.score(board, moves, count, 0, moves[count - 1]);
+        assertEquals(moves[count - 1], ordering.next(moves, 0, count, 0));
+    }
+    
+    @Test
+    void testStaticExchange() {
+        // The queen wins a pawn and loses itself to the rook, which is recaptured by the rook behind the queen.
+        assertEquals(100 - 950 + 500, exchange(Position.of(4, 4), Position.of(4, 6),
+            new King(Position.of(1, 1), ChessColor.WHITE),
+            new Rook(Position.of(4, 1), ChessColor.WHITE),
+            new Queen(Position.of(4, 4), ChessColor.WHITE),
+            new King(Position.of(8, 8), ChessColor.BLACK),
+            new Pawn(Position.of(4, 6), ChessColor.BLACK),
+            new Rook(Position.of(4, 8), ChessColor.BLACK)
+        ));
+        // The knight wins a bishop and is recaptured by a nightrider, unless another nightrider defends it from afar.
+        List<Piece> pieces = List.of(
+            new King(Position.of(1, 8), ChessColor.WHITE),
+            new Knight(Position.of(3, 4), ChessColor.WHITE),
+            new King(Position.of(8, 8), ChessColor.BLACK),
+            new Bishop(Position.of(5, 3), ChessColor.BLACK),
+            new Nightrider(Position.of(7, 4), ChessColor.BLACK)
+        );
+        assertEquals(325 - 300, exchange(Position.of(3, 4), Position.of(5, 3), pieces.toArray(Piece[]::new)));
+        List<Piece> defended = new ArrayList<>(pieces);
+        defended.add(new Nightrider(Position.of(1, 1), ChessColor.WHITE));
+        assertEquals(325, exchange(Position.of(3, 4), Position.of(5, 3), defended.toArray(Piece[]::new)));
+        
+        // The pawn captured en passant isn't on the final square of the capture.
+        Chess game = STANDARDGAME
+            .tryToMoveChain(Position.of(5, 2), Position.of(5, 4))
+            .tryToMoveChain(Position.of(1, 7), Position.of(1, 6))
+            .tryToMoveChain(Position.of(5, 4), Position.of(5, 5))
+            .tryToMoveChain(Position.of(4, 7), Position.of(4, 5));
+        SearchBoard board = SearchBoard.of(game);
+        Play enPassant = game.tryToMoveChain(Position.of(5, 5), Position.of(4, 6)).getLastPlay().get();
+        assertTrue(SearchBoard.isEnPassant(board.toMove(enPassant)));
+        assertEquals(0, board.staticExchange(board.toMove(enPassant), Evaluation::value));
+        
+        // Without quiescence, a depth 1 search would take the defended pawn.
+        Chess poisonedPawn = new Chess(
+            List.of(
+                new King(Position.of(1, 1), ChessColor.WHITE),
+                new Queen(Position.of(4, 4), ChessColor.WHITE),
+                new King(Position.of(8, 8), ChessColor.BLACK),
+                new Pawn(Position.of(4, 6), ChessColor.BLACK),
+                new Pawn(Position.of(5, 7), ChessColor.BLACK),
+                new Pawn(Position.of(7, 7), ChessColor.BLACK),
+                new Pawn(Position.of(8, 7), ChessColor.BLACK)
+            ),
+            GameVariant.STANDARD.initCastling(), List.of(), ChessColor.WHITE, GameVariant.STANDARD, GameState.IN_PROGRESS, false, -1, -1
+        );
+        SearchResult result = new Engine().search(poisonedPawn, SearchLimits.ofDepth(1));
+        // Material, give or take the squares of the pieces.
+        assertEquals(950 - 400, result.score(), 50);
+        assertNotEquals(Position.of(4, 6), result.bestPlay().get().finPos());
+    }
+    
+    @Test
+    void testIncrementalEvaluation() {
+        // Castlings, crownings and en passant captures tried along random games.
+        int[] specialMoves = new int[3];
+        int[] moves = new int[SearchBoard.MAX_MOVES];
+        for (GameVariant variant : GameVariant.values()) {
+            SplittableRandom random = new SplittableRandom(variant.ordinal());
+            for (int game = 0; game < 4; game++) {
+                SearchBoard board = SearchBoard.of(variant.initGame(false));
+                IncrementalEvaluation evaluation = new IncrementalEvaluation();
+                evaluation.attach(board);
+                assertEquals(0, evaluation.evaluate(ChessColor.WHITE));
+                for (int ply = 0; ply < 150; ply++) {
+                    int count = board.legalMoves(moves);
+                    if (count == 0) break;
+                    for (int i = 0; i < count; i++) {
+                        if (SearchBoard.moveCastling(moves[i]) != null) specialMoves[0]++;
+                        if (SearchBoard.moveCrowning(moves[i]) != null) specialMoves[1]++;
+                        if (SearchBoard.isEnPassant(moves[i])) specialMoves[2]++;
+                        board.makeMove(moves[i]);
+                        assertEquals(Evaluation.evaluate(board), evaluation.evaluate(board.activePlayer()));
+                        board.unmakeMove();
+                        assertEquals(Evaluation.evaluate(board), evaluation.evaluate(board.activePlayer()));
+                    }
+                    board.makeMove(moves[random.nextInt(count)]);
+                }
+            }
+        }
+        for (int special : specialMoves) assertTrue(special > 0);
+    }
+    
+    @Test
+    void testTimeManager() {
+        TimeManager time = TimeManager.ofClock(STANDARDGAME, 60_000);
+        assertEquals((60_000 - TimeManager.MARGIN_MILLIS) / TimeManager.EXPECTED_MOVES, time.softMillis());
+        assertEquals(time.hardMillis(), time.limits().millis());
+        assertFalse(time.isForced());
+        
+        // The search stops once the soft limit is spent, unless the best play keeps changing.
+        List<Play> plays = STANDARDGAME.legalMoves();
+        long soft = time.softMillis() * 1_000_000;
+        assertFalse(time.shouldStop(new SearchResult(0, 1, 100, soft / 2, List.of(plays.get(0)))));
+        assertTrue(time.shouldStop(new SearchResult(0, 2, 100, soft, List.of(plays.get(0)))));
+        time = TimeManager.ofClock(STANDARDGAME, 60_000);
+        assertFalse(time.shouldStop(new SearchResult(0, 1, 100, soft / 2, List.of(plays.get(0)))));
+        assertFalse(time.shouldStop(new SearchResult(0, 2, 100, soft, List.of(plays.get(1)))));
+        assertTrue(time.shouldStop(new SearchResult(0, 3, 100, 3 * soft, List.of(plays.get(1)))));
+        
+        // Almost out of time, the hard limit is still within the clock.
+        TimeManager hurry = TimeManager.ofClock(STANDARDGAME, 1500);
+        assertTrue(hurry.hardMillis() < 1500 - TimeManager.MARGIN_MILLIS);
+        assertTrue(TimeManager.ofClock(STANDARDGAME, 0).limits().millis() > 0);
+        
+        // A single legal play is played after the first iteration.
+        Chess forced = new Chess(
+            List.of(
+                new King(Position.of(8, 1), ChessColor.WHITE),
+                new Pawn(Position.of(8, 2), ChessColor.WHITE),
+                new Pawn(Position.of(2, 6), ChessColor.WHITE),
+                new King(Position.of(1, 8), ChessColor.BLACK),
+                new Pawn(Position.of(8, 3), ChessColor.BLACK),
+                new Rook(Position.of(7, 8), ChessColor.BLACK)
+            ),
+            Map.of(), List.of(), ChessColor.WHITE, GameVariant.STANDARD, GameState.IN_PROGRESS, true, 60, 60
+        );
+        assertEquals(1, forced.legalMoves().size());
+        TimeManager forcedTime = TimeManager.ofClock(forced, 60_000);
+        assertTrue(forcedTime.isForced());
+        Engine engine = new Engine();
+        SearchResult result = engine.search(forced, forcedTime.limits(), iteration -> {
+            if (forcedTime.shouldStop(iteration)) engine.stop();
+        });
+        assertEquals(1, result.depth());
+        assertEquals(forced.legalMoves().get(0).finPos(), result.bestPlay().get().finPos());
+    }
+    
+    static int exchange(Position initPos, Position finPos, Piece... pieces) {
+        Chess game = new Chess(List.of(pieces), GameVariant.STANDARD.initCastling(), List.of(), ChessColor.WHITE,
+            GameVariant.STANDARD, GameState.IN_PROGRESS, false, -1, -1);
+        SearchBoard board = SearchBoard.of(game);
+        Play play = game.tryToMoveChain(initPos, finPos).getLastPlay().get();
+        return board.staticExchange(board.toMove(play), Evaluation::value);
+    }
+    
     static Chess createTestGameWithPiece(Piece piece) {
         return new Chess(
             List.of(piece),